@@ -1,5 +1,13 @@
+import generator.DirectParserGenerator;
+import generator.TableParserGenerator;
 import grammar.LR0Grammar;
+import grammar.TableMode;
+import helperfunction.BatchCompiler;
+import helperfunction.GrammarCache;
+import helperfunction.ParseTableFile;
 import helperfunction.ReadingInput;
+import model.CompactParseTable;
+import writer.OutputFormat;
 
 import java.io.File;
 import java.io.IOException;
@@ -7,6 +15,7 @@ import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Comparator;
+import java.util.List;
 
 public class Main {
     private static final Path homeDirectory = FileSystems.getDefault().getPath("").toAbsolutePath();
@@ -44,52 +53,78 @@ public class Main {
         grammar.printGrammarToFile(pathToOutputDirectory, note);
     }
 
-    private static void printIndexingOfStatesToFile(LR0Grammar grammar) throws IOException {
-        String pathToFile = homeDirectory + "\\Output\\IndexingOfStates.txt";
-        grammar.printIndexingOfStatesToFile(pathToFile);
+    private static void printIndexingOfStatesToFile(LR0Grammar grammar, OutputFormat format) throws IOException {
+        String pathToFile = homeDirectory + "\\Output\\IndexingOfStates." + format.getExtension();
+        grammar.printIndexingOfStatesToFile(pathToFile, format);
     }
 
-    private static void printTransitionsToFile(LR0Grammar grammar) throws IOException {
-        String pathToFile = homeDirectory + "\\Output\\Transitions.txt";
-        grammar.printTransitionsToFile(pathToFile);
+    private static void printTransitionsToFile(LR0Grammar grammar, OutputFormat format) throws IOException {
+        String pathToFile = homeDirectory + "\\Output\\Transitions." + format.getExtension();
+        grammar.printTransitionsToFile(pathToFile, format);
     }
 
-    private static void printParsingTableToFile(LR0Grammar grammar) throws IOException {
-        String pathToFile = homeDirectory + "\\Output\\ParsingTable.txt";
-        grammar.printParsingTableToFile(pathToFile);
+    private static void printParsingTableToFile(LR0Grammar grammar, OutputFormat format) throws IOException {
+        String pathToFile = homeDirectory + "\\Output\\ParsingTable." + format.getExtension();
+        grammar.printParsingTableToFile(pathToFile, format);
     }
 
-    public static void main(String[] args) {
+    private static void writeBinaryParsingTable(LR0Grammar grammar) throws IOException {
+        String pathToFile = homeDirectory + "\\Output\\ParsingTable.bin";
+        ParseTableFile.write(grammar, pathToFile);
+    }
 
-        //create empty output directory
+    //null if the restored binary table can not be read
+    private static CompactParseTable loadBinaryParsingTable() {
+        String pathToFile = homeDirectory + "\\Output\\ParsingTable.bin";
         try {
-            createOutputDirectory();
+            return ParseTableFile.load(pathToFile).toCompactParseTable();
         } catch (IOException e) {
-            System.out.println("Could not create output file");
+            System.out.println("Could not read the cached binary parsing table, computing it again");
             System.out.println(e.getMessage());
+            return null;
         }
+    }
 
-        //take input the grammar
-        LR0Grammar grammar = null;
-        try {
-            grammar = takeLR0GrammarInput();
-        } catch (IOException e) {
-            System.out.println("Unable to read from grammar file");
-            System.out.println(e.getMessage());
+    //backend "table" writes the packed tables and a driver loop, "direct" one method per state
+    private static void generateParser(LR0Grammar grammar, CompactParseTable table, String className, String backend) throws IOException {
+        String pathToFile = homeDirectory + "\\Output\\" + className + ".java";
+        if(backend.equals("direct")) {
+            new DirectParserGenerator(grammar, table).generateToFile(null, className, pathToFile);
+        } else {
+            TableParserGenerator generator = new TableParserGenerator(grammar, table);
+            generator.generateToFile(null, className, generator.chooseArrayEncoding(), pathToFile);
         }
+    }
 
-        assert grammar != null;
+    //optional arguments: --mode LR0|SLR1|LALR1|LR1, --cache <directory>, --cache-size <megabytes>,
+    //--generate-parser <class name>, --parser-backend table|direct, --output-format TEXT|CSV|JSON_LINES|SPARSE,
+    //--batch <directory or manifest>, --threads <worker threads of the batch>
+    private static String readOption(String[] args, String name, String defaultValue) {
+        for(int i=0; i+1<args.length; i++) {
+            if(args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
+    }
 
-        System.out.println("Input Grammar: ");
-        grammar.printGrammar();
+    //files the cache keeps for every grammar
+    private static List<Path> generatedFiles(OutputFormat format) {
+        String pathToOutputDirectory = homeDirectory + "\\Output\\";
+        String extension = "." + format.getExtension();
+        return List.of(Path.of(pathToOutputDirectory + "IndexingOfStates" + extension), Path.of(pathToOutputDirectory + "Transitions" + extension),
+                Path.of(pathToOutputDirectory + "ParsingTable" + extension), Path.of(pathToOutputDirectory + "ParsingTable.bin"));
+    }
 
-        try {
-            printGrammarWithNoteToFile(grammar, "Input Grammar");
-        } catch (IOException e) {
-            System.out.println("Could not write input grammar to output file");
-            System.out.println(e.getMessage());
-        }
+    //compiles every grammar of the directory or manifest into its own folder of the output directory
+    private static void compileBatch(String directoryOrManifest, TableMode tableMode, OutputFormat outputFormat, int threads) throws IOException {
+        BatchCompiler batchCompiler = new BatchCompiler(Path.of(homeDirectory + "\\Output"), tableMode, outputFormat, threads);
+        List<BatchCompiler.Result> results = batchCompiler.compileAll(BatchCompiler.listGrammars(Path.of(directoryOrManifest)));
+        System.out.print(BatchCompiler.summaryToString(results));
+    }
 
+    //computes the automaton and the parsing table and writes them to the output directory
+    private static void buildAndWriteTables(LR0Grammar grammar, OutputFormat outputFormat) {
         System.out.println("Computing Transitions");
         grammar.computeTransitions();
 
@@ -103,25 +138,140 @@ public class Main {
         grammar.computeParsingTable();
         grammar.printParsingTable();
 
+        if(!grammar.getConflicts().isEmpty()) {
+            System.out.println("The grammar is not " + grammar.getTableMode() + ", conflicts in the parsing table:");
+            grammar.getConflicts().forEach(System.out::println);
+            System.out.println();
+        }
+
         try {
-            printTransitionsToFile(grammar);
+            printTransitionsToFile(grammar, outputFormat);
         } catch (IOException e) {
             System.out.println("Could not write transitions to output file");
             System.out.println(e.getMessage());
         }
 
         try {
-            printIndexingOfStatesToFile(grammar);
+            printIndexingOfStatesToFile(grammar, outputFormat);
         } catch (IOException e) {
             System.out.println("Could not write indexing of states to output file");
             System.out.println(e.getMessage());
         }
 
         try {
-            printParsingTableToFile(grammar);
+            printParsingTableToFile(grammar, outputFormat);
         } catch (IOException e) {
             System.out.println("Could not write parsing table to output file");
             System.out.println(e.getMessage());
         }
+
+        try {
+            writeBinaryParsingTable(grammar);
+        } catch (IOException e) {
+            System.out.println("Could not write binary parsing table to output file");
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public static void main(String[] args) {
+
+        //create empty output directory
+        try {
+            createOutputDirectory();
+        } catch (IOException e) {
+            System.out.println("Could not create output file");
+            System.out.println(e.getMessage());
+        }
+
+        String batch = readOption(args, "--batch", null);
+        if(batch != null) {
+            try {
+                compileBatch(batch, TableMode.valueOf(readOption(args, "--mode", "LR0").toUpperCase()),
+                        OutputFormat.valueOf(readOption(args, "--output-format", "TEXT").toUpperCase()),
+                        Integer.parseInt(readOption(args, "--threads", Integer.toString(Runtime.getRuntime().availableProcessors()))));
+            } catch (IOException e) {
+                System.out.println("Could not compile the batch of grammars");
+                System.out.println(e.getMessage());
+            }
+            return;
+        }
+
+        //take input the grammar
+        LR0Grammar grammar = null;
+        try {
+            grammar = takeLR0GrammarInput();
+        } catch (IOException e) {
+            System.out.println("Unable to read from grammar file");
+            System.out.println(e.getMessage());
+        }
+
+        assert grammar != null;
+        grammar.setTableMode(TableMode.valueOf(readOption(args, "--mode", "LR0").toUpperCase()));
+        OutputFormat outputFormat = OutputFormat.valueOf(readOption(args, "--output-format", "TEXT").toUpperCase());
+
+        System.out.println("Input Grammar: ");
+        grammar.printGrammar();
+
+        try {
+            printGrammarWithNoteToFile(grammar, "Input Grammar");
+        } catch (IOException e) {
+            System.out.println("Could not write input grammar to output file");
+            System.out.println(e.getMessage());
+        }
+
+        //reuse the tables of an unchanged grammar, the generated parser is not cached and is always written
+        GrammarCache cache = null;
+        boolean restored = false;
+        String fingerprint = null;
+        String cacheDirectory = readOption(args, "--cache", null);
+        if(cacheDirectory != null) {
+            try {
+                long cacheSize = Long.parseLong(readOption(args, "--cache-size", "256")) * 1024 * 1024;
+                cache = new GrammarCache(Path.of(cacheDirectory), cacheSize);
+                //entries of the same grammar in other output formats hold other files
+                fingerprint = GrammarCache.fingerprint(grammar) + "-" + outputFormat.getExtension();
+                if(cache.restore(fingerprint, Path.of(homeDirectory + "\\Output"))) {
+                    System.out.println("Grammar unchanged, reused the tables cached as " + fingerprint);
+                    restored = true;
+                }
+            } catch (IOException e) {
+                System.out.println("Could not read from the cache");
+                System.out.println(e.getMessage());
+            }
+        }
+
+        if(!restored) {
+            buildAndWriteTables(grammar, outputFormat);
+        }
+
+        String parserClassName = readOption(args, "--generate-parser", null);
+        if(parserClassName != null) {
+            try {
+                //generate from the cached binary table, the automaton is only built if there is none
+                CompactParseTable table = null;
+                if(restored) {
+                    table = loadBinaryParsingTable();
+                }
+                if(table == null) {
+                    table = grammar.getCompactParsingTable() != null ? grammar.getCompactParsingTable() : grammar.computeCompactParsingTable();
+                }
+                generateParser(grammar, table, parserClassName, readOption(args, "--parser-backend", "table"));
+            } catch (IOException e) {
+                System.out.println("Could not write the generated parser to output file");
+                System.out.println(e.getMessage());
+            }
+        }
+
+        if(cache != null && fingerprint != null && !restored) {
+            try {
+                cache.store(fingerprint, generatedFiles(outputFormat));
+            } catch (IOException e) {
+                System.out.println("Could not store the tables in the cache");
+                System.out.println(e.getMessage());
+            }
+        }
+
+        System.out.println();
+        System.out.print(grammar.getMetrics());
     }
 }
\ No newline at end of file
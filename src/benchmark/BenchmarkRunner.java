@@ -0,0 +1,228 @@
+package benchmark;
+
+import grammar.CompiledGrammar;
+import grammar.FirstAndFollowSets;
+import grammar.KernelTable;
+import grammar.LR0Grammar;
+import helperfunction.GrammarGenerator;
+import helperfunction.ReadingInput;
+import model.Item;
+import model.State;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Micro benchmarks of the construction steps: Item.closure, State construction, computeTransitions,
+ * computeParsingTable and the FIRST/FOLLOW sets, over the sample grammars and generated grammars of increasing size.
+ * <p>
+ * Every benchmark is warmed up first, then measured in samples: a sample repeats the operation until at least
+ * the sample time has passed and records the time per operation. Results of the operations go into a sink,
+ * so the JIT can not remove them. The report is written as JSON, one object per benchmark and grammar.
+ * <p>
+ * Arguments: --output report.json, --warmup samples, --samples samples, --sample-millis millis,
+ * --sizes 8,32,128 (levels of the generated grammars), --filter text (only benchmarks whose name contains it),
+ * --generated 10000,100000 (productions of grammars from {@link GrammarGenerator}, none by default)
+ */
+public class BenchmarkRunner {
+    private static final String SAMPLE_INPUT_DIRECTORY = "Input/SampleInput";
+
+    //keeps results alive
+    private static volatile long sink;
+
+    private final int warmupSamples;
+    private final int samples;
+    private final long sampleNanos;
+    private final String filter;
+    private final List<Map<String, Object>> results;
+
+    public BenchmarkRunner(int warmupSamples, int samples, long sampleMillis, String filter) {
+        this.warmupSamples = warmupSamples;
+        this.samples = samples;
+        this.sampleNanos = sampleMillis * 1_000_000;
+        this.filter = filter;
+        this.results = new ArrayList<>();
+    }
+
+    /**
+     * @param setup creates the input of one operation outside of the measured time, may return null
+     * @param operation measured, returns a value for the sink
+     */
+    private <T> void measure(String benchmark, String grammarName, LR0Grammar grammar, Supplier<T> setup, Operation<T> operation) {
+        if(this.filter != null && !benchmark.contains(this.filter)) {
+            return;
+        }
+
+        for(int i=0; i<this.warmupSamples; i++) {
+            this.sample(setup, operation);
+        }
+        double[] nanosPerOperation = new double[this.samples];
+        for(int i=0; i<this.samples; i++) {
+            nanosPerOperation[i] = this.sample(setup, operation);
+        }
+
+        double mean = Arrays.stream(nanosPerOperation).average().orElse(0);
+        double variance = Arrays.stream(nanosPerOperation).map(value -> (value - mean) * (value - mean)).sum() / Math.max(1, this.samples - 1);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("benchmark", benchmark);
+        result.put("grammar", grammarName);
+        result.put("productions", grammar.compile().getProductionCount());
+        result.put("states", grammar.getStateCount());
+        result.put("samples", this.samples);
+        result.put("meanNanosPerOperation", mean);
+        result.put("stdevNanosPerOperation", Math.sqrt(variance));
+        result.put("minNanosPerOperation", Arrays.stream(nanosPerOperation).min().orElse(0));
+        this.results.add(result);
+
+        System.out.println(String.format(Locale.ROOT, "%-26s %-24s %8d productions %10.0f ns/op +- %.0f",
+                benchmark, grammarName, grammar.compile().getProductionCount(), mean, Math.sqrt(variance)));
+    }
+
+    private <T> double sample(Supplier<T> setup, Operation<T> operation) {
+        long measured = 0;
+        long operations = 0;
+        long result = 0;
+        while(measured < this.sampleNanos) {
+            T input = setup.get();
+            long start = System.nanoTime();
+            result += operation.run(input);
+            measured += System.nanoTime() - start;
+            operations++;
+        }
+        sink += result;
+        return (double) measured / operations;
+    }
+
+    private interface Operation<T> {
+        long run(T input);
+    }
+
+    //computes the automaton once, so the grammar reports its state count and the table benchmarks have input
+    private static LR0Grammar prepared(LR0Grammar grammar) {
+        grammar.computeTransitions();
+        return grammar;
+    }
+
+    public void runAll(String grammarName, LR0Grammar grammar) {
+        LR0Grammar preparedGrammar = prepared(grammar);
+        CompiledGrammar compiledGrammar = preparedGrammar.compile();
+
+        this.measure("Item.closure", grammarName, preparedGrammar, () -> compiledGrammar.getItemView(compiledGrammar.getInitialItem(CompiledGrammar.AUGMENTED_PRODUCTION)),
+                item -> item.closure(preparedGrammar.getProductionRules()).size());
+
+        int[] initialKernel = {compiledGrammar.getInitialItem(CompiledGrammar.AUGMENTED_PRODUCTION)};
+        int initialHash = KernelTable.hash(initialKernel);
+        this.measure("State", grammarName, preparedGrammar, () -> null,
+                ignored -> new State(initialKernel, initialHash, compiledGrammar).getPackedItems().length);
+
+        this.measure("computeTransitions", grammarName, preparedGrammar, () -> null, ignored -> {
+            preparedGrammar.computeTransitions();
+            return preparedGrammar.getStateCount();
+        });
+
+        this.measure("computeParsingTable", grammarName, preparedGrammar, () -> null, ignored -> {
+            preparedGrammar.computeParsingTable();
+            return preparedGrammar.getConflicts().size();
+        });
+
+        this.measure("FirstAndFollowSets", grammarName, preparedGrammar, () -> null,
+                ignored -> new FirstAndFollowSets(compiledGrammar).getFollow(compiledGrammar.getStartSymbol())[0]);
+    }
+
+    /**
+     * Expression grammar with one non-terminal per precedence level:
+     * E0 -> E0 op0 E1 | E1, ..., E(n-1) -> E(n-1) op(n-1) En | En, En -> ( E0 ) | id
+     */
+    public static LR0Grammar expressionTower(int levels) {
+        LR0Grammar grammar = new LR0Grammar();
+        grammar.setFirstSymbol("E0");
+        grammar.addTerminalSymbol("(");
+        grammar.addTerminalSymbol(")");
+        grammar.addTerminalSymbol("id");
+        for(int level=0; level<=levels; level++) {
+            grammar.addNonTerminalSymbol("E" + level);
+        }
+        for(int level=0; level<levels; level++) {
+            grammar.addTerminalSymbol("op" + level);
+            grammar.addRule("E" + level + " -> E" + level + " op" + level + " E" + (level + 1) + " | E" + (level + 1));
+        }
+        grammar.addRule("E" + levels + " -> ( E0 ) | id");
+        return grammar;
+    }
+
+    public void writeReport(String path) throws IOException {
+        StringBuilder json = new StringBuilder("[\n");
+        for(int i=0; i<this.results.size(); i++) {
+            json.append("  {");
+            int field = 0;
+            for(Map.Entry<String, Object> entry: this.results.get(i).entrySet()) {
+                json.append(field++ > 0 ? ", " : "").append('"').append(entry.getKey()).append("\": ");
+                Object value = entry.getValue();
+                if(value instanceof String) {
+                    json.append('"').append(((String) value).replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+                } else if(value instanceof Double) {
+                    json.append(String.format(Locale.ROOT, "%.1f", (Double) value));
+                } else {
+                    json.append(value);
+                }
+            }
+            json.append(i + 1 < this.results.size() ? "},\n" : "}\n");
+        }
+        json.append("]\n");
+        Files.writeString(Path.of(path), json.toString(), StandardCharsets.UTF_8);
+    }
+
+    private static String readOption(String[] args, String name, String defaultValue) {
+        for(int i=0; i+1<args.length; i++) {
+            if(args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
+    }
+
+    public static void main(String[] args) throws IOException {
+        BenchmarkRunner runner = new BenchmarkRunner(
+                Integer.parseInt(readOption(args, "--warmup", "5")),
+                Integer.parseInt(readOption(args, "--samples", "10")),
+                Long.parseLong(readOption(args, "--sample-millis", "100")),
+                readOption(args, "--filter", null));
+
+        File[] sampleFiles = new File(SAMPLE_INPUT_DIRECTORY).listFiles((directory, name) -> name.endsWith(".txt"));
+        if(sampleFiles != null) {
+            Arrays.sort(sampleFiles);
+            for(File file: sampleFiles) {
+                runner.runAll(file.getName(), ReadingInput.readAndCreateLR0Grammar(file.getPath()));
+            }
+        }
+
+        for(String size: readOption(args, "--sizes", "8,32,128").split(",")) {
+            int levels = Integer.parseInt(size.trim());
+            runner.runAll("expressionTower" + levels, expressionTower(levels));
+        }
+
+        for(String size: readOption(args, "--generated", "").split(",")) {
+            if(size.isBlank()) {
+                continue;
+            }
+            GrammarGenerator generator = new GrammarGenerator(1);
+            generator.setProductions(Integer.parseInt(size.trim()));
+            runner.runAll("generated" + size.trim(), generator.generate());
+        }
+
+        String output = readOption(args, "--output", "benchmark-report.json");
+        runner.writeReport(output);
+        System.out.println("Report written to " + output);
+    }
+}
@@ -0,0 +1,241 @@
+package generator;
+
+import grammar.CompiledGrammar;
+import grammar.GrammarMetrics;
+import grammar.LR0Grammar;
+import model.CompactParseTable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generates the Java source of a direct coded parser in the style of recursive ascent: instead of table lookups
+ * every state becomes a case with a switch over the lookahead, every non-terminal a method with a switch
+ * over the state below the reduced right side, and every reduction a case that pops a constant number of states
+ * and calls the GOTO method of its left side. The JIT sees only constant branches, at the price of more code
+ * than the table driven parser of {@link TableParserGenerator}.
+ * <p>
+ * The state stack stays explicit, so deep inputs can not overflow the call stack. All switches over states and
+ * productions are split by {@link JavaWriter#chunkedSwitch}, so no method grows over the size up to which the JIT
+ * compiles methods. Grammars too large for the constant pool of one class are rejected, the table driven parser
+ * has no such limit.
+ */
+public class DirectParserGenerator {
+    //the constant pool of a class file has 65535 entries, leave room for what the estimate misses
+    private static final int MAX_CONSTANTS = 60000;
+
+    private final LR0Grammar grammar;
+    private final CompiledGrammar compiledGrammar;
+    private final CompactParseTable table;
+
+    public DirectParserGenerator(LR0Grammar grammar) {
+        this(grammar, grammar.getCompactParsingTable() != null ? grammar.getCompactParsingTable() : grammar.computeCompactParsingTable());
+    }
+
+    /**
+     * @param table table of the grammar in its current mode, for example one loaded from a cached binary parse table
+     */
+    public DirectParserGenerator(LR0Grammar grammar, CompactParseTable table) {
+        this.grammar = grammar;
+        this.compiledGrammar = grammar.compile();
+        this.table = table;
+    }
+
+    private static String actionToJava(int action) {
+        return action == CompactParseTable.ACCEPT ? "ACCEPT" : Integer.toString(action);
+    }
+
+    /**
+     * @param packageName package of the generated class, null or empty for the default package
+     * @throws IllegalStateException if the parser does not fit into a class file
+     */
+    public String generate(String packageName, String className) {
+        JavaWriter out = new JavaWriter();
+        CompiledGrammar compiledGrammar = this.compiledGrammar;
+        int stateCount = this.table.getStateCount();
+        int terminalCount = compiledGrammar.getTerminalCount();
+        TableParserGenerator.ArrayEncoding nameEncoding = TableParserGenerator.chooseNameEncoding(compiledGrammar);
+
+        if(packageName != null && !packageName.isEmpty()) {
+            out.line("package " + packageName + ";");
+            out.line("");
+        }
+        out.line("/**");
+        out.line(" * Direct coded " + this.grammar.getTableMode() + " parser for the start symbol " + JavaWriter.escapeComment(this.grammar.getFirstSymbol())
+                + ", " + stateCount + " states.");
+        out.line(" * Generated by DirectParserGenerator, do not edit.");
+        out.line(" */");
+        out.open("public final class " + className + " {");
+
+        TableParserGenerator.writeParserInterfaces(out);
+        TableParserGenerator.writeSymbolConstants(out, compiledGrammar, nameEncoding);
+
+        out.line("private static final int ACCEPT = Integer.MIN_VALUE;");
+        out.line("");
+        out.line("private int[] stateStack = new int[64];");
+        out.line("private int top;");
+        out.line("private int errorState = -1;");
+        out.line("private int errorToken = -1;");
+        out.line("");
+
+        out.open("private void push(int state) {");
+        out.open("if(++this.top == this.stateStack.length) {");
+        out.line("this.stateStack = java.util.Arrays.copyOf(this.stateStack, 2 * this.stateStack.length);");
+        out.close("}");
+        out.line("this.stateStack[this.top] = state;");
+        out.close("}");
+        out.line("");
+
+        out.line("/**");
+        out.line(" * Parses the tokens until accept or the first syntax error");
+        out.line(" * @return true if the input was accepted, false on a syntax error (see getErrorState and getErrorToken)");
+        out.line(" */");
+        out.open("public boolean parse(TokenStream tokens, ReductionListener listener) {");
+        out.line("this.top = 0;");
+        out.line("this.stateStack[0] = 0;");
+        out.line("this.errorState = -1;");
+        out.line("this.errorToken = -1;");
+        out.line("");
+        out.line("int lookahead = tokens.nextToken();");
+        out.open("while(true) {");
+        out.line("int state = this.stateStack[this.top];");
+        out.line("int action = action(state, lookahead);");
+        out.line("");
+        out.open("if(action > 0) {");
+        out.line("this.push(action);");
+        out.line("//$ ends the input, there is nothing to read after it");
+        out.open("if(lookahead != END_OF_LINE) {");
+        out.line("lookahead = tokens.nextToken();");
+        out.close("}");
+        out.reopen("} else if(action < 0 && action != ACCEPT) {");
+        out.line("this.reduce(-action);");
+        out.line("listener.onReduce(-action);");
+        out.reopen("} else if(action == ACCEPT) {");
+        out.line("return true;");
+        out.reopen("} else {");
+        out.line("this.errorState = state;");
+        out.line("this.errorToken = lookahead;");
+        out.line("return false;");
+        out.close("}");
+        out.close("}");
+        out.close("}");
+        out.line("");
+
+        //ACTION: a case per state
+        int methods = out.chunkedSwitch("private static int action", "int state, int lookahead", "state, lookahead", "state",
+                stateCount, this::stateBody, "return 0;");
+
+        //GOTO: one method per non-terminal
+        for(int nonTerminal=terminalCount; nonTerminal<compiledGrammar.getSymbolCount(); nonTerminal++) {
+            methods += this.writeGotoMethod(out, nonTerminal, stateCount);
+        }
+
+        //reductions: pop the right side, then go to the state of the left side
+        methods += out.chunkedSwitch("private void reduce", "int production", "production", "production",
+                compiledGrammar.getProductionCount(), production -> {
+                    if(production == CompiledGrammar.AUGMENTED_PRODUCTION) {
+                        return null;
+                    }
+                    return "//" + JavaWriter.escapeComment(compiledGrammar.productionToString(production)) + "\n"
+                            + "this.top -= " + compiledGrammar.getProductionLength(production) + ";\n"
+                            + "this.push(goto" + compiledGrammar.getProductionLeftSide(production) + "(this.stateStack[this.top]));\n"
+                            + "return;";
+                }, "throw new IllegalStateException(\"No production \" + production);");
+
+        long constants = this.estimateConstants(methods, nameEncoding);
+        if(constants > MAX_CONSTANTS) {
+            throw new IllegalStateException("The direct coded parser needs about " + constants + " constants, a class file has at most 65535, "
+                    + "use the table driven parser for this grammar");
+        }
+
+        TableParserGenerator.writeErrorGetters(out);
+        out.close("}");
+        return out.toString();
+    }
+
+    //switch over the lookahead of a state, the default action needs no case
+    private String stateBody(int state) {
+        int defaultAction = this.table.getDefaultAction(state);
+        StringBuilder body = new StringBuilder();
+        for(int terminal=0; terminal<this.compiledGrammar.getTerminalCount(); terminal++) {
+            int action = this.table.getAction(state, terminal);
+            if(action == defaultAction) {
+                continue;
+            }
+            if(body.length() == 0) {
+                body.append("switch(lookahead) {\n");
+            }
+            body.append("//").append(JavaWriter.escapeComment(this.compiledGrammar.getSymbolName(terminal))).append('\n');
+            body.append("case ").append(terminal).append(": return ").append(actionToJava(action)).append(";\n");
+        }
+        if(body.length() == 0) {
+            return "return " + actionToJava(defaultAction) + ";";
+        }
+        return body.append("default: return ").append(actionToJava(defaultAction)).append(";\n}").toString();
+    }
+
+    /**
+     * The GOTO method of a non-terminal is only called when the parser reduces to it, so the most frequent
+     * target can be the default and only the other states need a case
+     * @return number of methods written
+     */
+    private int writeGotoMethod(JavaWriter out, int nonTerminal, int stateCount) {
+        int[] targets = new int[stateCount];
+        int[] frequency = new int[stateCount];
+        int defaultTarget = 0;
+        for(int state=0; state<stateCount; state++) {
+            targets[state] = this.table.getGoto(state, nonTerminal);
+            if(targets[state] != 0 && ++frequency[targets[state]] > frequency[defaultTarget]) {
+                defaultTarget = targets[state];
+            }
+        }
+
+        int finalDefaultTarget = defaultTarget;
+        out.line("//" + JavaWriter.escapeComment(this.compiledGrammar.getSymbolName(nonTerminal)));
+        return out.chunkedSwitch("private static int goto" + nonTerminal, "int state", "state", "state", stateCount,
+                state -> targets[state] == 0 || targets[state] == finalDefaultTarget ? null : "return " + targets[state] + ";",
+                "return " + defaultTarget + ";");
+    }
+
+    /**
+     * Every method costs about three entries of the constant pool, every int outside the short range one,
+     * and every terminal constant two. Names are string constants unless they are encoded into long strings.
+     */
+    private long estimateConstants(int methods, TableParserGenerator.ArrayEncoding nameEncoding) {
+        long constants = 200 + 3L * methods + 2L * this.compiledGrammar.getTerminalCount();
+        constants += Math.max(0, this.table.getStateCount() - Short.MAX_VALUE) + Math.max(0, this.table.getProductionCount() - Short.MAX_VALUE);
+        if(nameEncoding == TableParserGenerator.ArrayEncoding.INT_ARRAYS) {
+            constants += 2L * (this.compiledGrammar.getSymbolCount() + this.compiledGrammar.getProductionCount());
+        }
+        return constants;
+    }
+
+    @SuppressWarnings("try")
+    public void generateToFile(String packageName, String className, String path) throws IOException {
+        try (GrammarMetrics.Timer timer = this.grammar.getMetrics().start(GrammarMetrics.Phase.OUTPUT)) {
+            Files.writeString(Path.of(path), this.generate(packageName, className), StandardCharsets.UTF_8);
+        }
+    }
+
+    //for testing
+    public static void main(String[] args) {
+        LR0Grammar grammar = new LR0Grammar();
+        grammar.setFirstSymbol("E");
+        grammar.addTerminalSymbol("+");
+        grammar.addTerminalSymbol("-");
+        grammar.addTerminalSymbol("(");
+        grammar.addTerminalSymbol(")");
+        grammar.addTerminalSymbol("id");
+
+        grammar.addNonTerminalSymbol("E");
+        grammar.addNonTerminalSymbol("T");
+
+        grammar.addRule("E -> E + T | E - T | T");
+        grammar.addRule("T -> ( E ) | id");
+
+        grammar.computeTransitions();
+        System.out.println(new DirectParserGenerator(grammar).generate("example", "ExpressionParser"));
+    }
+}
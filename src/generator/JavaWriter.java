@@ -0,0 +1,301 @@
+package generator;
+
+import java.util.function.IntFunction;
+
+/**
+ * Indenting line writer for generated Java source, with helpers for array and string literals.
+ */
+public class JavaWriter {
+    private static final String INDENT = "    ";
+    private static final int VALUES_PER_LINE = 16;
+    //methods of generated switches stay below the size up to which the JIT compiles methods
+    public static final int CASES_PER_METHOD = 256;
+    public static final int LINES_PER_METHOD = 600;
+    //a single case can not be split, it only has to fit the 64 KB of bytecode a method may have
+    private static final int MAX_LINES_PER_CASE = 4000;
+
+    private final StringBuilder builder;
+    private int depth;
+
+    public JavaWriter() {
+        this.builder = new StringBuilder();
+    }
+
+    public void line(String text) {
+        if(!text.isEmpty()) {
+            this.builder.append(INDENT.repeat(this.depth)).append(text);
+        }
+        this.builder.append('\n');
+    }
+
+    //line ending with an opening brace, following lines are indented one more
+    public void open(String text) {
+        this.line(text);
+        this.depth++;
+    }
+
+    public void close(String text) {
+        this.depth--;
+        this.line(text);
+    }
+
+    //"} else {" and similar
+    public void reopen(String text) {
+        this.depth--;
+        this.line(text);
+        this.depth++;
+    }
+
+    /**
+     * Writes a method switching over count cases. The cases are split into methods of at most CASES_PER_METHOD
+     * cases and LINES_PER_METHOD lines, found by a binary search over the first case of every method. More than
+     * CASES_PER_METHOD methods are searched by a tree of methods.
+     * @param caseBody statements of a case, leading comment lines go above it, null to leave the case out
+     * @return number of methods written
+     */
+    public int chunkedSwitch(String method, String parameters, String arguments, String selector,
+                             int count, IntFunction<String> caseBody, String defaultBody) {
+        //first pass: only the sizes of the cases, so large switches are not held in memory twice
+        int[] starts = new int[count + 1];
+        int parts = 0;
+        int cases = 0;
+        int lines = 0;
+        for(int i=0; i<count; i++) {
+            String body = caseBody.apply(i);
+            if(body == null) {
+                continue;
+            }
+            int caseLines = countStatementLines(body);
+            if(caseLines > MAX_LINES_PER_CASE) {
+                throw new IllegalStateException("Case " + i + " of " + method + " has " + caseLines
+                        + " lines, too many for a method of the class file format");
+            }
+            if(parts == 0 || cases == CASES_PER_METHOD || lines + caseLines > LINES_PER_METHOD) {
+                starts[parts++] = i;
+                cases = 0;
+                lines = 0;
+            }
+            cases++;
+            lines += caseLines;
+        }
+        starts[parts] = count;
+
+        if(parts == 0) {
+            this.open(method + "(" + parameters + ") {");
+            this.line(defaultBody);
+            this.close("}");
+            this.line("");
+            return 1;
+        }
+        int methods = parts > 1 ? this.dispatcher(method, "", arguments, parameters, selector, starts, 0, parts) : 0;
+
+        for(int part=0; part<parts; part++) {
+            this.open(method + (parts > 1 ? Integer.toString(part) : "") + "(" + parameters + ") {");
+            this.open("switch(" + selector + ") {");
+            for(int i=starts[part]; i<starts[part + 1]; i++) {
+                String body = caseBody.apply(i);
+                if(body == null) {
+                    continue;
+                }
+                String[] bodyLines = body.split("\n");
+                //comment lines of the case go above it
+                int first = 0;
+                while(bodyLines[first].startsWith("//")) {
+                    this.line(bodyLines[first++]);
+                }
+                if(first == bodyLines.length - 1 && !bodyLines[first].endsWith("{")) {
+                    this.line("case " + i + ": " + bodyLines[first]);
+                } else {
+                    this.open("case " + i + ": {");
+                    for(int line=first; line<bodyLines.length; line++) {
+                        this.statement(bodyLines[line]);
+                    }
+                    this.close("}");
+                }
+            }
+            this.line("default: " + defaultBody);
+            this.close("}");
+            this.close("}");
+            this.line("");
+        }
+        return methods + parts;
+    }
+
+    /**
+     * Writes the method calling the parts [from, to). Over CASES_PER_METHOD parts are grouped, and every group
+     * gets a method of its own that is written the same way.
+     * @return number of methods written
+     */
+    private int dispatcher(String method, String suffix, String arguments, String parameters, String selector,
+                           int[] starts, int from, int to) {
+        int groupSize = 1;
+        while((to - from + groupSize - 1) / groupSize > CASES_PER_METHOD) {
+            groupSize *= CASES_PER_METHOD;
+        }
+        this.open(method + suffix + "(" + parameters + ") {");
+        this.dispatch(method, arguments, selector, starts, groupSize, from, to);
+        this.close("}");
+        this.line("");
+
+        int methods = 1;
+        for(int group=from; group<to && groupSize > 1; group+=groupSize) {
+            int groupEnd = Math.min(to, group + groupSize);
+            if(groupEnd - group > 1) {
+                methods += this.dispatcher(method, groupSuffix(group, groupEnd), arguments, parameters, selector, starts, group, groupEnd);
+            }
+        }
+        return methods;
+    }
+
+    //binary search over the groups of groupSize parts in [low, high)
+    private void dispatch(String method, String arguments, String selector, int[] starts, int groupSize, int low, int high) {
+        if(high - low <= groupSize) {
+            String name = method.substring(method.lastIndexOf(' ') + 1);
+            String call = name + (high - low == 1 ? Integer.toString(low) : groupSuffix(low, high)) + "(" + arguments + ");";
+            this.line(method.contains(" void ") ? call : "return " + call);
+            return;
+        }
+        int groups = (high - low + groupSize - 1) / groupSize;
+        int middle = low + groups / 2 * groupSize;
+        this.open("if(" + selector + " < " + starts[middle] + ") {");
+        this.dispatch(method, arguments, selector, starts, groupSize, low, middle);
+        this.reopen("} else {");
+        this.dispatch(method, arguments, selector, starts, groupSize, middle, high);
+        this.close("}");
+    }
+
+    private static String groupSuffix(int from, int to) {
+        return "Parts" + from + "To" + (to - 1);
+    }
+
+    //line of generated code, indented by the braces it opens or closes
+    private void statement(String text) {
+        if(text.startsWith("//")) {
+            this.line(text);
+        } else if(text.startsWith("}") && text.endsWith("{")) {
+            this.reopen(text);
+        } else if(text.startsWith("}")) {
+            this.close(text);
+        } else if(text.endsWith("{")) {
+            this.open(text);
+        } else {
+            this.line(text);
+        }
+    }
+
+    private static int countStatementLines(String body) {
+        int lines = 0;
+        for(String line: body.split("\n")) {
+            if(!line.startsWith("//")) {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    public void intArray(String declaration, int[] values) {
+        if(values.length == 0) {
+            this.line(declaration + " = {};");
+            return;
+        }
+        this.open(declaration + " = {");
+        for(int start=0; start<values.length; start+=VALUES_PER_LINE) {
+            StringBuilder row = new StringBuilder();
+            for(int i=start; i<Math.min(start + VALUES_PER_LINE, values.length); i++) {
+                row.append(values[i] == Integer.MIN_VALUE ? "Integer.MIN_VALUE" : Integer.toString(values[i])).append(", ");
+            }
+            this.line(row.toString().trim());
+        }
+        this.close("};");
+    }
+
+    /**
+     * Writes the values as two chars each in string literals of at most charsPerString chars,
+     * decoded by a generated decode(int length, String... parts) method
+     */
+    public void stringEncodedArray(String declaration, int[] values, int charsPerString) {
+        this.open(declaration + " = decode(" + values.length + ",");
+        StringBuilder literal = new StringBuilder();
+        int chars = 0;
+        for(int i=0; i<values.length; i++) {
+            appendChar(literal, (char) (values[i] >>> 16));
+            appendChar(literal, (char) values[i]);
+            chars += 2;
+            if(chars >= charsPerString && i + 1 < values.length) {
+                this.line("\"" + literal + "\",");
+                literal.setLength(0);
+                chars = 0;
+            }
+        }
+        this.line("\"" + literal + "\");");
+        this.depth--;
+    }
+
+    /**
+     * Writes the values, each as one char holding its length followed by its chars, in string literals of at most
+     * charsPerString chars, decoded by a generated decodeStrings(int count, String... parts) method
+     */
+    public void stringEncodedStringArray(String declaration, String[] values, int charsPerString) {
+        this.open(declaration + " = decodeStrings(" + values.length + ",");
+        StringBuilder literal = new StringBuilder();
+        int chars = 0;
+        for(String value: values) {
+            if(value.length() > Character.MAX_VALUE) {
+                throw new IllegalArgumentException("String of " + value.length() + " chars is too long to be encoded");
+            }
+            String encoded = (char) value.length() + value;
+            for(int i=0; i<encoded.length(); i++) {
+                if(chars >= charsPerString) {
+                    this.line("\"" + literal + "\",");
+                    literal.setLength(0);
+                    chars = 0;
+                }
+                appendChar(literal, encoded.charAt(i));
+                chars++;
+            }
+        }
+        this.line("\"" + literal + "\");");
+        this.depth--;
+    }
+
+    public void stringArray(String declaration, String[] values) {
+        this.open(declaration + " = {");
+        for(String value: values) {
+            StringBuilder literal = new StringBuilder();
+            for(char c: value.toCharArray()) {
+                appendChar(literal, c);
+            }
+            this.line("\"" + literal + "\",");
+        }
+        this.close("};");
+    }
+
+    /**
+     * Appends the char as it has to appear in a string literal. Unicode escapes are translated before the source
+     * is parsed, so line breaks, quotes and backslashes must use octal escapes instead.
+     */
+    private static void appendChar(StringBuilder literal, char c) {
+        if(c == '"' || c == '\\') {
+            literal.append('\\').append(c);
+        } else if(c >= 0x20 && c < 0x7F) {
+            literal.append(c);
+        } else if(c < 0x100) {
+            //always three digits, so a following digit is not taken as part of the escape
+            literal.append(String.format("\\%03o", (int) c));
+        } else {
+            literal.append(String.format("\\u%04x", (int) c));
+        }
+    }
+
+    /**
+     * @return text which can be put in a comment, without line breaks, unicode escapes or the end of a block comment
+     */
+    public static String escapeComment(String text) {
+        return text.replace("\\u", "\\ u").replace("*/", "* /").replace('\n', ' ').replace('\r', ' ');
+    }
+
+    @Override
+    public String toString() {
+        return this.builder.toString();
+    }
+}
@@ -0,0 +1,331 @@
+package generator;
+
+import grammar.CompiledGrammar;
+import grammar.GrammarMetrics;
+import grammar.LR0Grammar;
+import model.CompactParseTable;
+import model.RowDisplacementTable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Generates the Java source of a self contained table driven parser from the compact parsing table of a grammar.
+ * The generated class does not depend on this project: it declares its own token stream and reduction listener,
+ * a constant for every terminal, the packed ACTION/GOTO arrays and a switch over the production numbers for reducing.
+ * <p>
+ * The arrays, and the SYMBOL_NAMES and PRODUCTIONS arrays of the names, are either written as array initializers,
+ * or encoded in string literals which are decoded once when the class is loaded. Array initializers are compiled
+ * into the static initializer, which is limited to 64 KB of bytecode, so big grammars have to use strings.
+ */
+public class TableParserGenerator {
+    public enum ArrayEncoding {
+        INT_ARRAYS,
+        STRINGS
+    }
+
+    //above this many ints and names in total the static initializer gets too close to its bytecode limit,
+    //an element of an array initializer takes up to 8 bytes
+    public static final int MAX_ELEMENTS_IN_ARRAYS = 6000;
+    //chars per string literal, a char takes at most 3 bytes in the 65535 byte constant pool entry
+    private static final int CHARS_PER_STRING = 20000;
+
+    private final LR0Grammar grammar;
+    private final CompiledGrammar compiledGrammar;
+    private final CompactParseTable table;
+
+    public TableParserGenerator(LR0Grammar grammar) {
+        this(grammar, grammar.getCompactParsingTable() != null ? grammar.getCompactParsingTable() : grammar.computeCompactParsingTable());
+    }
+
+    /**
+     * @param table table of the grammar in its current mode, for example one loaded from a cached binary parse table
+     */
+    public TableParserGenerator(LR0Grammar grammar, CompactParseTable table) {
+        this.grammar = grammar;
+        this.compiledGrammar = grammar.compile();
+        this.table = table;
+    }
+
+    /**
+     * @return STRINGS if the arrays and the names are too big for array initializers, INT_ARRAYS otherwise
+     */
+    public ArrayEncoding chooseArrayEncoding() {
+        RowDisplacementTable actionTable = this.table.getActionTable();
+        RowDisplacementTable gotoTable = this.table.getGotoTable();
+        long ints = 3L * this.table.getStateCount() + 2L * actionTable.getPackedLength() + 2L * gotoTable.getPackedLength();
+        return ints + nameCount(this.compiledGrammar) > MAX_ELEMENTS_IN_ARRAYS ? ArrayEncoding.STRINGS : ArrayEncoding.INT_ARRAYS;
+    }
+
+    /**
+     * @return encoding of SYMBOL_NAMES and PRODUCTIONS for a class without other array initializers
+     */
+    static ArrayEncoding chooseNameEncoding(CompiledGrammar compiledGrammar) {
+        return nameCount(compiledGrammar) > MAX_ELEMENTS_IN_ARRAYS ? ArrayEncoding.STRINGS : ArrayEncoding.INT_ARRAYS;
+    }
+
+    private static long nameCount(CompiledGrammar compiledGrammar) {
+        return (long) compiledGrammar.getSymbolCount() + compiledGrammar.getProductionCount();
+    }
+
+    /**
+     * @param packageName package of the generated class, null or empty for the default package
+     */
+    public String generate(String packageName, String className, ArrayEncoding arrayEncoding) {
+        JavaWriter out = new JavaWriter();
+        RowDisplacementTable actionTable = this.table.getActionTable();
+        RowDisplacementTable gotoTable = this.table.getGotoTable();
+
+        if(packageName != null && !packageName.isEmpty()) {
+            out.line("package " + packageName + ";");
+            out.line("");
+        }
+        out.line("/**");
+        out.line(" * Table driven " + this.grammar.getTableMode() + " parser for the start symbol " + JavaWriter.escapeComment(this.grammar.getFirstSymbol())
+                + ", " + this.table.getStateCount() + " states.");
+        out.line(" * Generated by TableParserGenerator, do not edit.");
+        out.line(" */");
+        out.open("public final class " + className + " {");
+
+        writeParserInterfaces(out);
+        writeSymbolConstants(out, this.compiledGrammar, arrayEncoding);
+
+        out.line("private static final int TERMINAL_COUNT = " + this.compiledGrammar.getTerminalCount() + ";");
+        out.line("private static final int ACCEPT = Integer.MIN_VALUE;");
+        out.line("");
+
+        int[] defaultAction = new int[this.table.getStateCount()];
+        for(int state=0; state<defaultAction.length; state++) {
+            defaultAction[state] = this.table.getDefaultAction(state);
+        }
+        String[] names = {"DEFAULT_ACTION", "ACTION_BASE", "ACTION_CHECK", "ACTION_NEXT", "GOTO_BASE", "GOTO_CHECK", "GOTO_NEXT"};
+        int[][] arrays = {defaultAction, actionTable.getBase(), actionTable.getCheck(), actionTable.getNext(),
+                gotoTable.getBase(), gotoTable.getCheck(), gotoTable.getNext()};
+        for(int i=0; i<names.length; i++) {
+            if(arrayEncoding == ArrayEncoding.INT_ARRAYS) {
+                out.intArray("private static final int[] " + names[i], arrays[i]);
+            } else {
+                out.stringEncodedArray("private static final int[] " + names[i], arrays[i], CHARS_PER_STRING);
+            }
+        }
+        out.line("");
+        if(arrayEncoding == ArrayEncoding.STRINGS) {
+            out.open("private static int[] decode(int length, String... parts) {");
+            out.line("//every int is stored as two chars, high half first");
+            out.line("String chars = String.join(\"\", parts);");
+            out.line("int[] values = new int[length];");
+            out.open("for(int i=0; i<length; i++) {");
+            out.line("values[i] = (chars.charAt(2 * i) << 16) | chars.charAt(2 * i + 1);");
+            out.close("}");
+            out.line("return values;");
+            out.close("}");
+            out.line("");
+        }
+
+        out.line("private int[] stateStack = new int[64];");
+        out.line("private int top;");
+        out.line("private int errorState = -1;");
+        out.line("private int errorToken = -1;");
+        out.line("");
+
+        out.open("private static int action(int state, int terminal) {");
+        out.line("int index = ACTION_BASE[state] + terminal;");
+        out.open("if(index < ACTION_CHECK.length && ACTION_CHECK[index] == state && ACTION_NEXT[index] != 0) {");
+        out.line("return ACTION_NEXT[index];");
+        out.close("}");
+        out.line("return DEFAULT_ACTION[state];");
+        out.close("}");
+        out.line("");
+
+        out.open("private static int goTo(int state, int nonTerminal) {");
+        out.line("int index = GOTO_BASE[state] + nonTerminal - TERMINAL_COUNT;");
+        out.line("return index < GOTO_CHECK.length && GOTO_CHECK[index] == state ? GOTO_NEXT[index] : 0;");
+        out.close("}");
+        out.line("");
+
+        out.open("private void push(int state) {");
+        out.open("if(++this.top == this.stateStack.length) {");
+        out.line("this.stateStack = java.util.Arrays.copyOf(this.stateStack, 2 * this.stateStack.length);");
+        out.close("}");
+        out.line("this.stateStack[this.top] = state;");
+        out.close("}");
+        out.line("");
+
+        out.line("/**");
+        out.line(" * Parses the tokens until accept or the first syntax error");
+        out.line(" * @return true if the input was accepted, false on a syntax error (see getErrorState and getErrorToken)");
+        out.line(" */");
+        out.open("public boolean parse(TokenStream tokens, ReductionListener listener) {");
+        out.line("this.top = 0;");
+        out.line("this.stateStack[0] = 0;");
+        out.line("this.errorState = -1;");
+        out.line("this.errorToken = -1;");
+        out.line("");
+        out.line("int lookahead = tokens.nextToken();");
+        out.open("while(true) {");
+        out.line("int state = this.stateStack[this.top];");
+        out.line("int action = action(state, lookahead);");
+        out.line("");
+        out.open("if(action > 0) {");
+        out.line("this.push(action);");
+        out.line("//$ ends the input, there is nothing to read after it");
+        out.open("if(lookahead != END_OF_LINE) {");
+        out.line("lookahead = tokens.nextToken();");
+        out.close("}");
+        out.reopen("} else if(action < 0 && action != ACCEPT) {");
+        out.line("this.reduce(-action);");
+        out.line("listener.onReduce(-action);");
+        out.reopen("} else if(action == ACCEPT) {");
+        out.line("return true;");
+        out.reopen("} else {");
+        out.line("this.errorState = state;");
+        out.line("this.errorToken = lookahead;");
+        out.line("return false;");
+        out.close("}");
+        out.close("}");
+        out.close("}");
+        out.line("");
+
+        //reductions: pop the right side, then go to the state of the left side
+        CompiledGrammar compiledGrammar = this.compiledGrammar;
+        CompactParseTable table = this.table;
+        out.chunkedSwitch("private void reduce", "int production", "production", "production",
+                table.getProductionCount(), production -> {
+                    if(production == CompiledGrammar.AUGMENTED_PRODUCTION) {
+                        return null;
+                    }
+                    return "//" + JavaWriter.escapeComment(compiledGrammar.productionToString(production)) + "\n"
+                            + "this.top -= " + table.getProductionLength(production) + ";\n"
+                            + "this.push(goTo(this.stateStack[this.top], " + table.getProductionLeftSide(production) + "));\n"
+                            + "return;";
+                }, "throw new IllegalStateException(\"No production \" + production);");
+
+        writeErrorGetters(out);
+        out.close("}");
+        return out.toString();
+    }
+
+    @SuppressWarnings("try")
+    public void generateToFile(String packageName, String className, ArrayEncoding arrayEncoding, String path) throws IOException {
+        try (GrammarMetrics.Timer timer = this.grammar.getMetrics().start(GrammarMetrics.Phase.OUTPUT)) {
+            Files.writeString(Path.of(path), this.generate(packageName, className, arrayEncoding), StandardCharsets.UTF_8);
+        }
+    }
+
+    //shared with the direct coded generator
+
+    static void writeParserInterfaces(JavaWriter out) {
+        out.line("/**");
+        out.line(" * Source of terminal ids, see the T_ constants. After the last token it keeps returning END_OF_LINE.");
+        out.line(" */");
+        out.open("public interface TokenStream {");
+        out.line("int nextToken();");
+        out.close("}");
+        out.line("");
+        out.line("/**");
+        out.line(" * Called for every reduction with the production number, see PRODUCTIONS.");
+        out.line(" */");
+        out.open("public interface ReductionListener {");
+        out.line("void onReduce(int production);");
+        out.close("}");
+        out.line("");
+    }
+
+    static void writeSymbolConstants(JavaWriter out, CompiledGrammar compiledGrammar, ArrayEncoding arrayEncoding) {
+        out.line("public static final int END_OF_LINE = " + CompiledGrammar.END_OF_LINE + ";");
+        Set<String> used = new HashSet<>();
+        for(int terminal=0; terminal<compiledGrammar.getTerminalCount(); terminal++) {
+            if(terminal == CompiledGrammar.END_OF_LINE) {
+                continue;
+            }
+            String name = compiledGrammar.getSymbolName(terminal);
+            //punctuation is spelled out by its unicode name, + becomes T_PLUS_SIGN
+            StringBuilder identifier = new StringBuilder("T");
+            boolean inWord = false;
+            for(char c: name.toCharArray()) {
+                if(Character.isJavaIdentifierPart(c) && c < 128 && c != '$') {
+                    identifier.append(inWord ? "" : "_").append(c);
+                    inWord = true;
+                } else {
+                    String characterName = Character.getName(c);
+                    identifier.append('_').append(characterName == null ? Integer.toString(c) : characterName.replaceAll("[^A-Za-z0-9]+", "_"));
+                    inWord = false;
+                }
+            }
+            if(!used.add(identifier.toString())) {
+                identifier.append('_').append(terminal);
+                used.add(identifier.toString());
+            }
+            out.line("//" + JavaWriter.escapeComment(name));
+            out.line("public static final int " + identifier + " = " + terminal + ";");
+        }
+        out.line("");
+
+        String[] symbolNames = new String[compiledGrammar.getSymbolCount()];
+        for(int symbol=0; symbol<symbolNames.length; symbol++) {
+            symbolNames[symbol] = compiledGrammar.getSymbolName(symbol);
+        }
+        String[] productions = new String[compiledGrammar.getProductionCount()];
+        for(int p=0; p<productions.length; p++) {
+            productions[p] = compiledGrammar.productionToString(p);
+        }
+
+        if(arrayEncoding == ArrayEncoding.INT_ARRAYS) {
+            out.stringArray("public static final String[] SYMBOL_NAMES", symbolNames);
+            out.stringArray("public static final String[] PRODUCTIONS", productions);
+            out.line("");
+            return;
+        }
+        out.stringEncodedStringArray("public static final String[] SYMBOL_NAMES", symbolNames, CHARS_PER_STRING);
+        out.stringEncodedStringArray("public static final String[] PRODUCTIONS", productions, CHARS_PER_STRING);
+        out.line("");
+        out.open("private static String[] decodeStrings(int count, String... parts) {");
+        out.line("//every string is stored as one char holding its length, then its chars");
+        out.line("String chars = String.join(\"\", parts);");
+        out.line("String[] values = new String[count];");
+        out.line("int position = 0;");
+        out.open("for(int i=0; i<count; i++) {");
+        out.line("int length = chars.charAt(position++);");
+        out.line("values[i] = chars.substring(position, position + length);");
+        out.line("position += length;");
+        out.close("}");
+        out.line("return values;");
+        out.close("}");
+        out.line("");
+    }
+
+    static void writeErrorGetters(JavaWriter out) {
+        out.open("public int getErrorState() {");
+        out.line("return this.errorState;");
+        out.close("}");
+        out.line("");
+        out.open("public int getErrorToken() {");
+        out.line("return this.errorToken;");
+        out.close("}");
+    }
+
+    //for testing
+    public static void main(String[] args) {
+        LR0Grammar grammar = new LR0Grammar();
+        grammar.setFirstSymbol("E");
+        grammar.addTerminalSymbol("+");
+        grammar.addTerminalSymbol("-");
+        grammar.addTerminalSymbol("(");
+        grammar.addTerminalSymbol(")");
+        grammar.addTerminalSymbol("id");
+
+        grammar.addNonTerminalSymbol("E");
+        grammar.addNonTerminalSymbol("T");
+
+        grammar.addRule("E -> E + T | E - T | T");
+        grammar.addRule("T -> ( E ) | id");
+
+        grammar.computeTransitions();
+        TableParserGenerator generator = new TableParserGenerator(grammar);
+        System.out.println(generator.generate("example", "ExpressionParser", generator.chooseArrayEncoding()));
+    }
+}
@@ -0,0 +1,410 @@
+package grammar;
+
+import model.Item;
+import model.ItemPool;
+import model.ProductionRule;
+
+import java.util.*;
+
+import static constants.StringConstants.END_OF_LINE_SYMBOL;
+import static constants.StringConstants.EPSILON;
+
+/**
+ * Integer form of a {@link Grammar} used by the automaton and table construction.
+ * Symbols are interned to dense ids: terminals take [0, terminalCount) with {@link #END_OF_LINE} at 0,
+ * non-terminals take [terminalCount, symbolCount) with the augmented start symbol first.
+ * Every alternative of every production rule gets a production number; production 0 is always S' -> S $.
+ * Right hand sides are stored back to back in one flat array, epsilon is stored as an empty right hand side.
+ * <p>
+ * LR(0) items are packed into a single int: item (p, dot) is numbered rightSideStart[p] + p + dot,
+ * so the items of one production are consecutive and moving the dot is just item + 1.
+ */
+public class CompiledGrammar {
+    public static final int END_OF_LINE = 0;
+    public static final int AUGMENTED_PRODUCTION = 0;
+
+    private final String[] symbolNames;
+    private final Map<String, Integer> symbolIds;
+    private final int terminalCount;
+
+    private final int[] productionLeftSide;
+    //right side of production p is rightSideSymbols[rightSideStart[p] .. rightSideStart[p+1])
+    private final int[] rightSideStart;
+    private final int[] rightSideSymbols;
+
+    //for every packed item: its production, and the symbol after the dot (-1 for reduction items)
+    private final int[] itemProduction;
+    private final int[] itemNextSymbol;
+
+    //productions of non-terminal n are [productionsStart[n - terminalCount], productionsStart[n - terminalCount + 1])
+    private final int[] productionsStart;
+
+    //closureNonTerminals[n - terminalCount] is a bitset of the non-terminals reachable from n by leftmost expansion
+    private final long[][] closureNonTerminals;
+
+    private volatile ItemPool itemPool;
+
+    CompiledGrammar(Grammar grammar) {
+        String firstSymbol = grammar.getFirstSymbol();
+        if(firstSymbol == null) {
+            throw new IllegalStateException("Start symbol of the grammar is not set");
+        }
+
+        List<ProductionRule> productionRules = grammar.getProductionRules();
+        Set<String> leftSides = new HashSet<>();
+        for(ProductionRule productionRule: productionRules) {
+            leftSides.add(productionRule.getLeftHandSide());
+        }
+
+        //terminals: $ first, then declared terminals, then symbols used on a right side that have no rule
+        List<String> terminals = new ArrayList<>();
+        terminals.add(END_OF_LINE_SYMBOL);
+        List<String> declaredTerminals = new ArrayList<>(grammar.getTerminalSymbols());
+        Collections.sort(declaredTerminals);
+        for(String terminal: declaredTerminals) {
+            if(!terminal.equals(END_OF_LINE_SYMBOL) && !leftSides.contains(terminal)) {
+                terminals.add(terminal);
+            }
+        }
+
+        //non-terminals: augmented start, then left sides in rule order, then declared ones without any rule
+        List<String> nonTerminals = new ArrayList<>();
+        nonTerminals.add(grammar.findNewName(firstSymbol));
+        for(ProductionRule productionRule: productionRules) {
+            nonTerminals.add(productionRule.getLeftHandSide());
+        }
+        List<String> declaredNonTerminals = new ArrayList<>(grammar.getNonTerminalSymbols());
+        Collections.sort(declaredNonTerminals);
+        for(String nonTerminal: declaredNonTerminals) {
+            if(!leftSides.contains(nonTerminal)) {
+                nonTerminals.add(nonTerminal);
+            }
+        }
+
+        Set<String> known = new HashSet<>(terminals);
+        known.addAll(nonTerminals);
+        for(ProductionRule productionRule: productionRules) {
+            for(List<String> right: this.sortedAlternatives(productionRule)) {
+                for(String symbol: right) {
+                    if(!symbol.equals(EPSILON) && known.add(symbol)) {
+                        terminals.add(symbol);
+                    }
+                }
+            }
+        }
+
+        this.terminalCount = terminals.size();
+        this.symbolNames = new String[terminals.size() + nonTerminals.size()];
+        this.symbolIds = new HashMap<>();
+        int id = 0;
+        for(String terminal: terminals) {
+            this.symbolNames[id] = terminal;
+            this.symbolIds.put(terminal, id++);
+        }
+        for(String nonTerminal: nonTerminals) {
+            this.symbolNames[id] = nonTerminal;
+            this.symbolIds.put(nonTerminal, id++);
+        }
+
+        //number the productions, grouped by left side in non-terminal order
+        List<Integer> leftSideList = new ArrayList<>();
+        List<int[]> rightSideList = new ArrayList<>();
+        this.productionsStart = new int[nonTerminals.size() + 1];
+
+        this.productionsStart[0] = 0;
+        leftSideList.add(this.terminalCount);
+        rightSideList.add(new int[] {this.symbolIds.get(firstSymbol), END_OF_LINE});
+
+        for(int i=0; i<productionRules.size(); i++) {
+            ProductionRule productionRule = productionRules.get(i);
+            this.productionsStart[i + 1] = leftSideList.size();
+            int leftSide = this.symbolIds.get(productionRule.getLeftHandSide());
+
+            for(List<String> right: this.sortedAlternatives(productionRule)) {
+                int[] symbols = right.stream()
+                        .filter(symbol -> !symbol.equals(EPSILON))
+                        .mapToInt(this.symbolIds::get)
+                        .toArray();
+                leftSideList.add(leftSide);
+                rightSideList.add(symbols);
+            }
+        }
+        for(int i=productionRules.size() + 1; i<=nonTerminals.size(); i++) {
+            this.productionsStart[i] = leftSideList.size();
+        }
+
+        int productionCount = leftSideList.size();
+        this.productionLeftSide = new int[productionCount];
+        this.rightSideStart = new int[productionCount + 1];
+        int totalLength = 0;
+        for(int[] right: rightSideList) {
+            totalLength += right.length;
+        }
+        this.rightSideSymbols = new int[totalLength];
+
+        int offset = 0;
+        for(int p=0; p<productionCount; p++) {
+            int[] right = rightSideList.get(p);
+            this.productionLeftSide[p] = leftSideList.get(p);
+            this.rightSideStart[p] = offset;
+            System.arraycopy(right, 0, this.rightSideSymbols, offset, right.length);
+            offset += right.length;
+        }
+        this.rightSideStart[productionCount] = offset;
+
+        int itemCount = totalLength + productionCount;
+        this.itemProduction = new int[itemCount];
+        this.itemNextSymbol = new int[itemCount];
+        int item = 0;
+        for(int p=0; p<productionCount; p++) {
+            for(int i=this.rightSideStart[p]; i<this.rightSideStart[p + 1]; i++) {
+                this.itemProduction[item] = p;
+                this.itemNextSymbol[item++] = this.rightSideSymbols[i];
+            }
+            this.itemProduction[item] = p;
+            this.itemNextSymbol[item++] = -1;
+        }
+
+        this.closureNonTerminals = this.computeClosureNonTerminals();
+    }
+
+    /**
+     * The closure of an item with the dot before non-terminal A contains the initial items of all productions
+     * of every non-terminal reachable from A over the "starts with" relation, including A itself.
+     * As the productions of a non-terminal are consecutive, the set of initial items is kept as a bitset of
+     * non-terminals.
+     */
+    private long[][] computeClosureNonTerminals() {
+        int nonTerminalCount = this.getNonTerminalCount();
+        int words = (nonTerminalCount + 63) >>> 6;
+        long[][] result = new long[nonTerminalCount][];
+
+        for(int start=0; start<nonTerminalCount; start++) {
+            long[] reached = new long[words];
+            int[] stack = new int[nonTerminalCount];
+            int top = 0;
+            reached[start >>> 6] |= 1L << start;
+            stack[top++] = start;
+
+            while(top > 0) {
+                int nonTerminal = stack[--top] + this.terminalCount;
+                for(int p=this.getProductionsStart(nonTerminal); p<this.getProductionsEnd(nonTerminal); p++) {
+                    int firstSymbol = this.itemNextSymbol[this.getInitialItem(p)];
+                    if(firstSymbol < 0 || this.isTerminal(firstSymbol)) {
+                        continue;
+                    }
+                    int index = firstSymbol - this.terminalCount;
+                    if((reached[index >>> 6] & (1L << index)) == 0) {
+                        reached[index >>> 6] |= 1L << index;
+                        stack[top++] = index;
+                    }
+                }
+            }
+            result[start] = reached;
+        }
+
+        return result;
+    }
+
+    //the right hand side is a HashSet, sort it so that production numbers do not depend on hashing
+    private List<List<String>> sortedAlternatives(ProductionRule productionRule) {
+        List<List<String>> alternatives = new ArrayList<>(productionRule.getRightHandSide());
+        alternatives.sort(Comparator.comparing((List<String> right) -> String.join(" ", right)));
+        return alternatives;
+    }
+
+    public int getSymbolCount() {
+        return this.symbolNames.length;
+    }
+
+    public int getTerminalCount() {
+        return this.terminalCount;
+    }
+
+    public int getNonTerminalCount() {
+        return this.symbolNames.length - this.terminalCount;
+    }
+
+    public boolean isTerminal(int symbol) {
+        return symbol < this.terminalCount;
+    }
+
+    public boolean isNonTerminal(int symbol) {
+        return symbol >= this.terminalCount;
+    }
+
+    /**
+     * @return id of the symbol, or -1 if the symbol is not part of the grammar
+     */
+    public int getSymbolId(String symbol) {
+        Integer id = this.symbolIds.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    public String getSymbolName(int symbol) {
+        return this.symbolNames[symbol];
+    }
+
+    /**
+     * @return the augmented start symbol S'
+     */
+    public int getStartSymbol() {
+        return this.terminalCount;
+    }
+
+    public int getProductionCount() {
+        return this.productionLeftSide.length;
+    }
+
+    public int getProductionLeftSide(int production) {
+        return this.productionLeftSide[production];
+    }
+
+    public int getProductionLength(int production) {
+        return this.rightSideStart[production + 1] - this.rightSideStart[production];
+    }
+
+    public int getRightSideSymbol(int production, int position) {
+        return this.rightSideSymbols[this.rightSideStart[production] + position];
+    }
+
+    public int[] getRightSide(int production) {
+        return Arrays.copyOfRange(this.rightSideSymbols, this.rightSideStart[production], this.rightSideStart[production + 1]);
+    }
+
+    public int getProductionsStart(int nonTerminal) {
+        return this.productionsStart[nonTerminal - this.terminalCount];
+    }
+
+    public int getProductionsEnd(int nonTerminal) {
+        return this.productionsStart[nonTerminal - this.terminalCount + 1];
+    }
+
+    /**
+     * @return bitset over non-terminal indexes (symbol - terminalCount) whose initial items are in the closure of
+     * an item with the dot before the given non-terminal, must not be modified
+     */
+    public long[] getClosureNonTerminals(int nonTerminal) {
+        return this.closureNonTerminals[nonTerminal - this.terminalCount];
+    }
+
+    /**
+     * @return the production as a single alternative ProductionRule, used for printing
+     */
+    public ProductionRule getProductionRule(int production) {
+        ProductionRule productionRule = new ProductionRule(this.symbolNames[this.productionLeftSide[production]]);
+        List<String> right = new ArrayList<>();
+        for(int i=this.rightSideStart[production]; i<this.rightSideStart[production + 1]; i++) {
+            right.add(this.symbolNames[this.rightSideSymbols[i]]);
+        }
+        productionRule.addRightHandSide(right);
+        return productionRule;
+    }
+
+    public String productionToString(int production) {
+        return this.getProductionRule(production).toString();
+    }
+
+    public int getItemCount() {
+        return this.itemProduction.length;
+    }
+
+    /**
+     * @return the packed item for the given production with the dot before position dot
+     */
+    public int getItem(int production, int dot) {
+        return this.rightSideStart[production] + production + dot;
+    }
+
+    /**
+     * @return the packed item with the dot at the start of the production
+     */
+    public int getInitialItem(int production) {
+        return this.rightSideStart[production] + production;
+    }
+
+    public int getItemProduction(int item) {
+        return this.itemProduction[item];
+    }
+
+    public int getItemDot(int item) {
+        return item - this.getInitialItem(this.itemProduction[item]);
+    }
+
+    /**
+     * @return symbol next to the dot marker, or -1 if the item is a reduction item
+     */
+    public int getNextSymbol(int item) {
+        return this.itemNextSymbol[item];
+    }
+
+    /**
+     * @return the item with the dot moved over the next symbol, only valid for non reduction items
+     */
+    public int advance(int item) {
+        return item + 1;
+    }
+
+    public boolean isReductionItem(int item) {
+        return this.itemNextSymbol[item] < 0;
+    }
+
+    /**
+     * @return true for S' -> S $ with the dot at the end
+     */
+    public boolean isAcceptingItem(int item) {
+        return item == this.getItem(AUGMENTED_PRODUCTION, 2);
+    }
+
+    /**
+     * @return canonical Item instances of this grammar, created on first use
+     */
+    public ItemPool getItemPool() {
+        ItemPool itemPool = this.itemPool;
+        if(itemPool == null) {
+            synchronized (this) {
+                if(this.itemPool == null) {
+                    this.itemPool = new ItemPool(this);
+                }
+                itemPool = this.itemPool;
+            }
+        }
+        return itemPool;
+    }
+
+    /**
+     * @return the packed item as its canonical Item, used for printing
+     */
+    public Item getItemView(int item) {
+        return this.getItemPool().get(item);
+    }
+
+    //for testing
+    public static void main(String[] args) {
+        Grammar grammar = new Grammar();
+        grammar.setFirstSymbol("E");
+        grammar.addTerminalSymbol("+");
+        grammar.addTerminalSymbol("(");
+        grammar.addTerminalSymbol(")");
+        grammar.addTerminalSymbol("id");
+
+        grammar.addNonTerminalSymbol("E");
+        grammar.addNonTerminalSymbol("T");
+
+        grammar.addRule("E -> E + T | T");
+        grammar.addRule("T -> ( E ) | id | ε");
+
+        CompiledGrammar compiledGrammar = grammar.compile();
+        for(int symbol=0; symbol<compiledGrammar.getSymbolCount(); symbol++) {
+            System.out.println(symbol + " : " + compiledGrammar.getSymbolName(symbol));
+        }
+        for(int production=0; production<compiledGrammar.getProductionCount(); production++) {
+            System.out.println(production + " : " + compiledGrammar.productionToString(production));
+        }
+        for(int item=0; item<compiledGrammar.getItemCount(); item++) {
+            System.out.println(item + " : " + compiledGrammar.getItemView(item)
+                    + " reduction: " + compiledGrammar.isReductionItem(item)
+                    + " accepting: " + compiledGrammar.isAcceptingItem(item));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package grammar;
+
+/**
+ * The digraph algorithm of DeRemer and Pennello: given a relation R over nodes and initial sets F'(x),
+ * computes F(x) = F'(x) union F(y) for all y with x R y, transitively.
+ * Strongly connected components of R are found on the way (as in Tarjan's algorithm) and every member of
+ * a component gets the same set, so each edge is processed once.
+ * The traversal uses explicit stacks, deep relations do not overflow the call stack.
+ */
+public class Digraph {
+    private static final int DONE = Integer.MAX_VALUE;
+
+    private Digraph() {
+    }
+
+    /**
+     * @param relation relation[x] are the nodes y with x R y, may be null for no edges
+     * @param sets bitsets holding F'(x) on entry and F(x) on return, all of the same length
+     */
+    public static void traverse(int[][] relation, long[][] sets) {
+        int nodeCount = sets.length;
+        int[] depth = new int[nodeCount];
+        int[] stack = new int[nodeCount];
+        int top = 0;
+
+        //frames of the simulated recursion: node, index of the next edge to follow and depth when pushed
+        int[] frameNode = new int[nodeCount];
+        int[] frameEdge = new int[nodeCount];
+        int[] frameDepth = new int[nodeCount];
+        int frames = 0;
+
+        for(int start=0; start<nodeCount; start++) {
+            if(depth[start] != 0) {
+                continue;
+            }
+
+            stack[top++] = start;
+            depth[start] = top;
+            frameNode[frames] = start;
+            frameEdge[frames] = 0;
+            frameDepth[frames++] = top;
+
+            while(frames > 0) {
+                int node = frameNode[frames - 1];
+                int[] edges = relation[node];
+
+                if(edges != null && frameEdge[frames - 1] < edges.length) {
+                    int next = edges[frameEdge[frames - 1]++];
+                    if(depth[next] == 0) {
+                        stack[top++] = next;
+                        depth[next] = top;
+                        frameNode[frames] = next;
+                        frameEdge[frames] = 0;
+                        frameDepth[frames++] = top;
+                    } else {
+                        depth[node] = Math.min(depth[node], depth[next]);
+                        FirstAndFollowSets.or(sets[node], sets[next]);
+                    }
+                    continue;
+                }
+
+                //all edges followed, close the component if node is its root
+                frames--;
+                if(depth[node] == frameDepth[frames]) {
+                    int member;
+                    do {
+                        member = stack[--top];
+                        depth[member] = DONE;
+                        if(member != node) {
+                            System.arraycopy(sets[node], 0, sets[member], 0, sets[node].length);
+                        }
+                    } while(member != node);
+                }
+
+                if(frames > 0) {
+                    int parent = frameNode[frames - 1];
+                    depth[parent] = Math.min(depth[parent], depth[node]);
+                    FirstAndFollowSets.or(sets[parent], sets[node]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package grammar;
+
+import java.util.Arrays;
+
+/**
+ * Nullable, FIRST and FOLLOW sets of a {@link CompiledGrammar}, kept as bitsets over terminal ids.
+ * FIRST is computed with a single worklist fixpoint: every non-terminal is propagated to the non-terminals
+ * whose FIRST set depends on it only when its own set changed, so left recursion needs no special care.
+ * FOLLOW is computed with the {@link Digraph} algorithm over the "includes" relation
+ * (A includes B when B -> alpha A beta and beta is nullable), starting from the FIRST sets of what follows A.
+ */
+public class FirstAndFollowSets {
+    private final CompiledGrammar compiledGrammar;
+    private final int words;
+
+    //indexed by non-terminal id - terminal count
+    private final boolean[] nullable;
+    private final long[][] first;
+    private final long[][] follow;
+
+    public FirstAndFollowSets(CompiledGrammar compiledGrammar) {
+        this.compiledGrammar = compiledGrammar;
+        this.words = (compiledGrammar.getTerminalCount() + 63) >>> 6;
+
+        int nonTerminalCount = compiledGrammar.getNonTerminalCount();
+        this.nullable = new boolean[nonTerminalCount];
+        this.first = new long[nonTerminalCount][this.words];
+
+        this.follow = new long[nonTerminalCount][this.words];
+
+        this.computeNullable();
+        this.computeFirst();
+        this.computeFollow();
+    }
+
+    private int index(int nonTerminal) {
+        return nonTerminal - this.compiledGrammar.getTerminalCount();
+    }
+
+    private void computeNullable() {
+        CompiledGrammar grammar = this.compiledGrammar;
+        int productionCount = grammar.getProductionCount();
+
+        //for every production the number of right side symbols not known to be nullable yet
+        int[] remaining = new int[productionCount];
+        //productions in which a non-terminal occurs, as linked lists over the right side positions
+        int[] occurrenceHead = new int[grammar.getNonTerminalCount()];
+        Arrays.fill(occurrenceHead, -1);
+        int[] occurrenceNext = new int[grammar.getItemCount()];
+        int[] occurrenceProduction = new int[grammar.getItemCount()];
+        int occurrences = 0;
+
+        int[] worklist = new int[grammar.getNonTerminalCount()];
+        int size = 0;
+
+        for(int p=0; p<productionCount; p++) {
+            int length = grammar.getProductionLength(p);
+            boolean hasTerminal = false;
+            for(int i=0; i<length; i++) {
+                int symbol = grammar.getRightSideSymbol(p, i);
+                if(grammar.isTerminal(symbol)) {
+                    hasTerminal = true;
+                } else {
+                    occurrenceProduction[occurrences] = p;
+                    occurrenceNext[occurrences] = occurrenceHead[this.index(symbol)];
+                    occurrenceHead[this.index(symbol)] = occurrences++;
+                }
+            }
+            //a production with a terminal can never derive epsilon
+            remaining[p] = hasTerminal ? -1 : length;
+
+            int leftSide = this.index(grammar.getProductionLeftSide(p));
+            if(remaining[p] == 0 && !this.nullable[leftSide]) {
+                this.nullable[leftSide] = true;
+                worklist[size++] = leftSide;
+            }
+        }
+
+        while(size > 0) {
+            int nonTerminal = worklist[--size];
+            for(int occurrence = occurrenceHead[nonTerminal]; occurrence >= 0; occurrence = occurrenceNext[occurrence]) {
+                int p = occurrenceProduction[occurrence];
+                if(remaining[p] > 0 && --remaining[p] == 0) {
+                    int leftSide = this.index(grammar.getProductionLeftSide(p));
+                    if(!this.nullable[leftSide]) {
+                        this.nullable[leftSide] = true;
+                        worklist[size++] = leftSide;
+                    }
+                }
+            }
+        }
+    }
+
+    private void computeFirst() {
+        CompiledGrammar grammar = this.compiledGrammar;
+        int nonTerminalCount = grammar.getNonTerminalCount();
+
+        //dependents[B] lists the non-terminals A with FIRST(A) including FIRST(B)
+        int[][] dependents = new int[nonTerminalCount][];
+        int[] dependentCount = new int[nonTerminalCount];
+
+        for(int p=0; p<grammar.getProductionCount(); p++) {
+            int leftSide = this.index(grammar.getProductionLeftSide(p));
+            for(int i=0; i<grammar.getProductionLength(p); i++) {
+                int symbol = grammar.getRightSideSymbol(p, i);
+                if(grammar.isTerminal(symbol)) {
+                    this.first[leftSide][symbol >>> 6] |= 1L << symbol;
+                    break;
+                }
+
+                int index = this.index(symbol);
+                if(index != leftSide) {
+                    if(dependents[index] == null) {
+                        dependents[index] = new int[4];
+                    } else if(dependentCount[index] == dependents[index].length) {
+                        dependents[index] = Arrays.copyOf(dependents[index], 2 * dependentCount[index]);
+                    }
+                    dependents[index][dependentCount[index]++] = leftSide;
+                }
+                if(!this.nullable[index]) {
+                    break;
+                }
+            }
+        }
+
+        int[] worklist = new int[nonTerminalCount];
+        boolean[] inWorklist = new boolean[nonTerminalCount];
+        int head = 0, size = 0;
+        for(int index=0; index<nonTerminalCount; index++) {
+            worklist[size++] = index;
+            inWorklist[index] = true;
+        }
+
+        //circular queue, a non-terminal is in it at most once
+        while(size > 0) {
+            int index = worklist[head];
+            head = (head + 1) % nonTerminalCount;
+            size--;
+            inWorklist[index] = false;
+
+            for(int d=0; d<dependentCount[index]; d++) {
+                int dependent = dependents[index][d];
+                if(or(this.first[dependent], this.first[index]) && !inWorklist[dependent]) {
+                    inWorklist[dependent] = true;
+                    worklist[(head + size) % nonTerminalCount] = dependent;
+                    size++;
+                }
+            }
+        }
+    }
+
+    private void computeFollow() {
+        CompiledGrammar grammar = this.compiledGrammar;
+        int nonTerminalCount = grammar.getNonTerminalCount();
+
+        int[][] includes = new int[nonTerminalCount][];
+        int[] includesCount = new int[nonTerminalCount];
+
+        //$ follows the start symbol through S' -> S $, so it needs no special case
+        for(int p=0; p<grammar.getProductionCount(); p++) {
+            int leftSide = this.index(grammar.getProductionLeftSide(p));
+            int length = grammar.getProductionLength(p);
+
+            for(int i=0; i<length; i++) {
+                int symbol = grammar.getRightSideSymbol(p, i);
+                if(grammar.isTerminal(symbol)) {
+                    continue;
+                }
+
+                int index = this.index(symbol);
+                boolean restIsNullable = this.addFirstOfRightSide(p, i + 1, this.follow[index]);
+                if(restIsNullable && index != leftSide) {
+                    if(includes[index] == null) {
+                        includes[index] = new int[4];
+                    } else if(includesCount[index] == includes[index].length) {
+                        includes[index] = Arrays.copyOf(includes[index], 2 * includesCount[index]);
+                    }
+                    includes[index][includesCount[index]++] = leftSide;
+                }
+            }
+        }
+
+        for(int index=0; index<nonTerminalCount; index++) {
+            if(includes[index] != null) {
+                includes[index] = Arrays.copyOf(includes[index], includesCount[index]);
+            }
+        }
+        Digraph.traverse(includes, this.follow);
+    }
+
+    /**
+     * target |= source
+     * @return true if target changed
+     */
+    static boolean or(long[] target, long[] source) {
+        boolean changed = false;
+        for(int i=0; i<target.length; i++) {
+            long value = target[i] | source[i];
+            if(value != target[i]) {
+                target[i] = value;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public CompiledGrammar getCompiledGrammar() {
+        return this.compiledGrammar;
+    }
+
+    /**
+     * @return number of longs in every bitset over terminals
+     */
+    public int getWords() {
+        return this.words;
+    }
+
+    public boolean isNullable(int symbol) {
+        return this.compiledGrammar.isNonTerminal(symbol) && this.nullable[this.index(symbol)];
+    }
+
+    /**
+     * @return FIRST set of the non-terminal as bitset over terminal ids, must not be modified
+     */
+    public long[] getFirst(int nonTerminal) {
+        return this.first[this.index(nonTerminal)];
+    }
+
+    /**
+     * @return FOLLOW set of the non-terminal as bitset over terminal ids, must not be modified
+     */
+    public long[] getFollow(int nonTerminal) {
+        return this.follow[this.index(nonTerminal)];
+    }
+
+    /**
+     * Adds FIRST of the right side of the production from the given position onwards to the bitset
+     * @return true if that part of the right side can derive epsilon
+     */
+    public boolean addFirstOfRightSide(int production, int fromPosition, long[] into) {
+        for(int i=fromPosition; i<this.compiledGrammar.getProductionLength(production); i++) {
+            int symbol = this.compiledGrammar.getRightSideSymbol(production, i);
+            if(this.compiledGrammar.isTerminal(symbol)) {
+                into[symbol >>> 6] |= 1L << symbol;
+                return false;
+            }
+            or(into, this.first[this.index(symbol)]);
+            if(!this.nullable[this.index(symbol)]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,82 @@
+package grammar;
+
+import java.util.Arrays;
+
+/**
+ * Splits the items of a state by the symbol next to the dot and advances them, giving the kernel of every
+ * successor state. Successors come out ordered by symbol id. Not thread safe, use one per thread.
+ */
+public class GotoPartitioner {
+    private final CompiledGrammar compiledGrammar;
+    private int[] symbols;
+    private int[][] kernels;
+    private int count;
+
+    //scratch arrays indexed by symbol id, all zero between calls
+    private final int[] itemsBySymbol;
+    private final int[] successorBySymbol;
+
+    public GotoPartitioner(CompiledGrammar compiledGrammar) {
+        this.compiledGrammar = compiledGrammar;
+        this.symbols = new int[16];
+        this.kernels = new int[16][];
+        this.itemsBySymbol = new int[compiledGrammar.getSymbolCount()];
+        this.successorBySymbol = new int[compiledGrammar.getSymbolCount()];
+    }
+
+    /**
+     * Counts the items per next symbol, then distributes the advanced items into kernels of exactly that size,
+     * so the items are scanned twice whatever the number of successors
+     * @param items packed items of the state in ascending order
+     * @return number of successor states, see getSymbol and getKernel
+     */
+    public int partition(int[] items) {
+        this.count = 0;
+        for(int item: items) {
+            int symbol = this.compiledGrammar.getNextSymbol(item);
+            if(symbol < 0) {
+                continue;
+            }
+            if(this.itemsBySymbol[symbol]++ == 0) {
+                if(this.count == this.symbols.length) {
+                    this.symbols = Arrays.copyOf(this.symbols, 2 * this.count);
+                    this.kernels = Arrays.copyOf(this.kernels, 2 * this.count);
+                }
+                this.symbols[this.count++] = symbol;
+            }
+        }
+        Arrays.sort(this.symbols, 0, this.count);
+
+        for(int successor=0; successor<this.count; successor++) {
+            int symbol = this.symbols[successor];
+            this.kernels[successor] = new int[this.itemsBySymbol[symbol]];
+            this.successorBySymbol[symbol] = successor;
+            //from here on the number of items already placed in the kernel
+            this.itemsBySymbol[symbol] = 0;
+        }
+
+        //items are sorted and advancing keeps the order, so the kernels come out sorted
+        for(int item: items) {
+            int symbol = this.compiledGrammar.getNextSymbol(item);
+            if(symbol >= 0) {
+                this.kernels[this.successorBySymbol[symbol]][this.itemsBySymbol[symbol]++] = this.compiledGrammar.advance(item);
+            }
+        }
+
+        for(int successor=0; successor<this.count; successor++) {
+            this.itemsBySymbol[this.symbols[successor]] = 0;
+        }
+        return this.count;
+    }
+
+    public int getSymbol(int successor) {
+        return this.symbols[successor];
+    }
+
+    /**
+     * @return sorted kernel of the successor, a new array owned by the caller
+     */
+    public int[] getKernel(int successor) {
+        return this.kernels[successor];
+    }
+}
@@ -23,6 +23,12 @@ public class Grammar {
     private final Map<String, Set<String>> firstSet;
     private final Map<String, Set<String>> followSet;
 
+    //integer form of the grammar and its FIRST sets, dropped whenever the grammar is changed
+    private CompiledGrammar compiledGrammar;
+    private FirstAndFollowSets firstAndFollowSets;
+
+    private final GrammarMetrics metrics;
+
     public Grammar() {
         this.productionRules = new ArrayList<>();
         this.terminalSymbols = new HashSet<>();
@@ -30,6 +36,11 @@ public class Grammar {
         this.nonTerminalSymbols = new HashSet<>();
         this.firstSet = new HashMap<>();
         this.followSet = new HashMap<>();
+        this.metrics = new GrammarMetrics();
+    }
+
+    public GrammarMetrics getMetrics() {
+        return this.metrics;
     }
 
     public String getFirstSymbol() {
@@ -38,6 +49,35 @@ public class Grammar {
 
     public void setFirstSymbol(String firstSymbol) {
         this.firstSymbol = firstSymbol;
+        this.grammarChanged();
+    }
+
+    /**
+     * @return the integer form of this grammar, compiled on first use and reused until the grammar changes
+     */
+    public CompiledGrammar compile() {
+        if(this.compiledGrammar == null) {
+            this.compiledGrammar = new CompiledGrammar(this);
+        }
+        return this.compiledGrammar;
+    }
+
+    /**
+     * @return nullable and FIRST sets of the compiled grammar as bitsets, computed on first use
+     */
+    @SuppressWarnings("try")
+    public FirstAndFollowSets getFirstAndFollowSets() {
+        if(this.firstAndFollowSets == null) {
+            try (GrammarMetrics.Timer timer = this.metrics.start(GrammarMetrics.Phase.FIRST_FOLLOW)) {
+                this.firstAndFollowSets = new FirstAndFollowSets(this.compile());
+            }
+        }
+        return this.firstAndFollowSets;
+    }
+
+    private void grammarChanged() {
+        this.compiledGrammar = null;
+        this.firstAndFollowSets = null;
     }
 
     public List<ProductionRule> getProductionRules() {
@@ -55,7 +95,8 @@ public class Grammar {
     
     public void addRule (String leftHandSide, Set<List<String>> rightHandSide) {
         ProductionRule alreadyExistingProductionRule = this.getProductionRuleBasedOnNonTerminal(leftHandSide);
-        
+        this.grammarChanged();
+
         if (alreadyExistingProductionRule == null) {
             ProductionRule newProductionRule = new ProductionRule(leftHandSide);
             newProductionRule.addAllRightHandSide(rightHandSide);
@@ -99,6 +140,7 @@ public class Grammar {
     
     public void addTerminalSymbol(String str) {
         this.terminalSymbols.add(str);
+        this.grammarChanged();
     }
 
     public void addAllTerminalSymbolFromIterator(Iterator<String> iterator) {
@@ -117,6 +159,7 @@ public class Grammar {
     
     public void addNonTerminalSymbol(String str) {
         this.nonTerminalSymbols.add(str);
+        this.grammarChanged();
     }
 
     public void addAllNonTerminalSymbolFromIterator(Iterator<String> iterator) {
@@ -130,6 +173,11 @@ public class Grammar {
     }
     
     public void addFirstSet(String symbol, String firstSetSymbol) {
+        if (this.firstSet.get(symbol) instanceof TerminalSetView) {
+            //computed sets are read only views, copy before changing
+            this.firstSet.put(symbol, new HashSet<>(this.firstSet.get(symbol)));
+        }
+
         if (this.firstSet.containsKey(symbol)) {
             this.firstSet.get(symbol).add(firstSetSymbol);
         } else {
@@ -153,58 +201,34 @@ public class Grammar {
     }
     
     private void computeFirstSetForAllTerminalSymbols() {
-        for (String terminalSymbol: this.terminalSymbols) {
-            if(terminalSymbol.equals(END_OF_LINE_SYMBOL)) {
+        CompiledGrammar compiledGrammar = this.compile();
+        int words = this.getFirstAndFollowSets().getWords();
+        for (int terminal=0; terminal<compiledGrammar.getTerminalCount(); terminal++) {
+            if(terminal == CompiledGrammar.END_OF_LINE) {
                 continue;
             }
-            this.addFirstSet(terminalSymbol, terminalSymbol);
+            long[] bits = new long[words];
+            bits[terminal >>> 6] |= 1L << terminal;
+            this.firstSet.put(compiledGrammar.getSymbolName(terminal), new TerminalSetView(compiledGrammar, bits, false));
         }
     }
-    
-    private Set<String> computeFirstSetForParticularSymbol(String symbol) {
-        if (this.isTerminalSymbol(symbol)) {
-            Set<String> result = new HashSet<>();
-            result.add(symbol);
-            return result;
-        }
-        
-        ProductionRule productionRule = this.getProductionRuleBasedOnNonTerminal(symbol);
-        assert productionRule != null;
 
-        Set<String> result = new HashSet<>();
-        for (List<String> rightSide: productionRule.getRightHandSide()) {
-            if(rightSide.get(0).equals(EPSILON)) {
-                result.add(EPSILON);
-            } else {
-                boolean toAddEpsilon = true;
-                for(String symbolForRightSide: rightSide) {
-                    Set<String> toAdd = new HashSet<>(this.computeFirstSetForParticularSymbol(symbolForRightSide));
-                    if(toAdd.contains(EPSILON)) {
-                        toAdd.remove(EPSILON);
-                        result.addAll(toAdd);
-                    } else {
-                        toAddEpsilon = false;
-                        result.addAll(toAdd);
-                        break;
-                    }
-                }
-                
-                if(toAddEpsilon) {
-                    result.add(EPSILON);
-                }
-            }
-        }
-        
-        return result;
-    }
-    
     private void computeFirstSetForAllNonTerminalSymbols() {
-        for (String nonTerminal: this.nonTerminalSymbols) {
-            Set<String> toAdd = this.computeFirstSetForParticularSymbol(nonTerminal);
-            this.addAllFirstSet(nonTerminal, toAdd);
+        CompiledGrammar compiledGrammar = this.compile();
+        FirstAndFollowSets sets = this.getFirstAndFollowSets();
+        for (int nonTerminal=compiledGrammar.getTerminalCount(); nonTerminal<compiledGrammar.getSymbolCount(); nonTerminal++) {
+            if(nonTerminal == compiledGrammar.getStartSymbol()) {
+                //the augmented start symbol is not part of this grammar
+                continue;
+            }
+            TerminalSetView view = new TerminalSetView(compiledGrammar, sets.getFirst(nonTerminal), sets.isNullable(nonTerminal));
+            this.firstSet.put(compiledGrammar.getSymbolName(nonTerminal), view);
         }
     }
-    
+
+    /**
+     * FIRST sets are views over the bitsets of getFirstAndFollowSets, computed by a single worklist fixpoint
+     */
     public void computeFirstSetForAllSymbols() {
         this.computeFirstSetForAllTerminalSymbols();
         
@@ -212,6 +236,11 @@ public class Grammar {
     }
 
     public void addFollowSet(String symbol, String followSetSymbol) {
+        if (this.followSet.get(symbol) instanceof TerminalSetView) {
+            //computed sets are read only views, copy before changing
+            this.followSet.put(symbol, new HashSet<>(this.followSet.get(symbol)));
+        }
+
         if (this.followSet.containsKey(symbol)) {
             this.followSet.get(symbol).add(followSetSymbol);
         } else {
@@ -235,49 +264,19 @@ public class Grammar {
         return Collections.unmodifiableSet(this.followSet.get(symbol));
     }
 
-    private Set<String> computeFollowSetForNonTerminalSymbol(String nonTerminal) {
-        Set<String> result = new HashSet<>();
-
-        if(nonTerminal.equals(this.firstSymbol)) {
-            result.add(END_OF_LINE_SYMBOL);
-        }
-
-        for(ProductionRule productionRule: this.productionRules) {
-            String leftHandSide = productionRule.getLeftHandSide();
-
-            for(List<String> right: productionRule.getRightHandSide()) {
-                for(int i=0; i<right.size(); i++) {
-                    String symbol = right.get(i);
-
-                    if(symbol.equals(nonTerminal)) {
-                        if(i == (right.size() - 1)) {
-                            if(leftHandSide.equals(nonTerminal)) {
-                                continue;
-                            } else {
-                                result.addAll(this.computeFollowSetForNonTerminalSymbol(leftHandSide));
-                            }
-                        } else {
-                            Set<String> firstOfNext = new HashSet<>(this.getFirstSet(right.get(i+1)));
-                            if(firstOfNext.contains(EPSILON)) {
-                                firstOfNext.remove(EPSILON);
-                                result.addAll(firstOfNext);
-                                result.addAll(this.computeFollowSetForNonTerminalSymbol(leftHandSide));
-                            } else {
-                                result.addAll(firstOfNext);
-                            }
-                        }
-                    }
-                }
-            }
-        }
-
-        return result;
-    }
-
+    /**
+     * FOLLOW sets are views over the bitsets of getFirstAndFollowSets, computed with the digraph algorithm
+     */
     public void computeFollowSetForAllSymbols() {
-        for(String nonTerminal: this.nonTerminalSymbols) {
-            Set<String> toAdd = computeFollowSetForNonTerminalSymbol(nonTerminal);
-            this.addAllFollowSet(nonTerminal, toAdd);
+        CompiledGrammar compiledGrammar = this.compile();
+        FirstAndFollowSets sets = this.getFirstAndFollowSets();
+        for (int nonTerminal=compiledGrammar.getTerminalCount(); nonTerminal<compiledGrammar.getSymbolCount(); nonTerminal++) {
+            if(nonTerminal == compiledGrammar.getStartSymbol()) {
+                //the augmented start symbol is not part of this grammar
+                continue;
+            }
+            TerminalSetView view = new TerminalSetView(compiledGrammar, sets.getFollow(nonTerminal), false);
+            this.followSet.put(compiledGrammar.getSymbolName(nonTerminal), view);
         }
     }
 
@@ -299,18 +298,21 @@ public class Grammar {
         System.out.println();
     }
 
+    @SuppressWarnings("try")
     public void printGrammarToFile(String pathToDirectory, String note) throws IOException {
         String pathToFile = pathToDirectory + "\\" + note.replace(" ", "") + ".txt";
 //        System.out.println(pathToFile);
-        BufferedWriter writer = new BufferedWriter(new FileWriter(pathToFile));
-        writer.write(note + "\n");
-        writer.write("Following is the set of terminal symbols:" + this.terminalSymbols.toString() + "\n");
-        writer.write("Following is the set of non-terminal symbols: " + this.nonTerminalSymbols.toString() + "\n");
-        writer.write("Following are the rules in the given grammar: \n");
-        for (ProductionRule productionRule: this.productionRules) {
-            writer.write(productionRule.toString() + "\n");
+        try (GrammarMetrics.Timer timer = this.metrics.start(GrammarMetrics.Phase.OUTPUT)) {
+            BufferedWriter writer = new BufferedWriter(new FileWriter(pathToFile));
+            writer.write(note + "\n");
+            writer.write("Following is the set of terminal symbols:" + this.terminalSymbols.toString() + "\n");
+            writer.write("Following is the set of non-terminal symbols: " + this.nonTerminalSymbols.toString() + "\n");
+            writer.write("Following are the rules in the given grammar: \n");
+            for (ProductionRule productionRule: this.productionRules) {
+                writer.write(productionRule.toString() + "\n");
+            }
+            writer.close();
         }
-        writer.close();
     }
 
     public void printFirstAndFollowSet() {
@@ -443,6 +445,7 @@ public class Grammar {
     }
 
     public void applyAlgorithmForRemovalOfLeftRecursion() {
+        this.grammarChanged();
         int size = productionRules.size();
 
         for (int i=0; i<size; i++) {
@@ -605,6 +608,7 @@ public class Grammar {
     private final List<ProductionRule> toStoreNewRules = new ArrayList<>();
 
     public void applyAlgorithmForProducingAnEquivalentLeftFactored() {
+        this.grammarChanged();
         boolean value = true;
 
         //applying the algorithm continuously
@@ -0,0 +1,162 @@
+package grammar;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Wall time per phase and counters of the automaton and the parsing table of one grammar, see Grammar.getMetrics.
+ * Phase times add up over repeated runs of a phase until reset is called, the counters describe the last
+ * automaton and table. Every timed phase is also emitted as a JFR event named lr0.Phase.
+ */
+public class GrammarMetrics {
+    public enum Phase {
+        READ,
+        FIRST_FOLLOW,
+        TRANSITIONS,
+        TABLE,
+        OUTPUT
+    }
+
+    @Name("lr0.Phase")
+    @Label("Grammar Phase")
+    @Category("LR0 Automaton")
+    @Description("One phase of reading a grammar, building its automaton and table, or writing the output")
+    static class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("States")
+        int states;
+
+        @Label("Closures")
+        long closures;
+
+        @Label("Closure Items")
+        long closureItems;
+
+        @Label("Duplicate Goto Targets")
+        long duplicateGotoTargets;
+
+        @Label("Table Fill Ratio")
+        double tableFillRatio;
+    }
+
+    /**
+     * Measures one run of a phase until close is called, open it in a try-with-resources statement.
+     * Phases do not nest: a phase using another one computes it before starting its timer.
+     */
+    public class Timer implements AutoCloseable {
+        private final Phase phase;
+        private final long start;
+        private final PhaseEvent event;
+
+        private Timer(Phase phase) {
+            this.phase = phase;
+            this.event = new PhaseEvent();
+            this.event.begin();
+            this.start = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            GrammarMetrics.this.phaseNanos[this.phase.ordinal()] += System.nanoTime() - this.start;
+            this.event.end();
+            if(this.event.shouldCommit()) {
+                this.event.phase = this.phase.name();
+                this.event.states = GrammarMetrics.this.states;
+                this.event.closures = GrammarMetrics.this.closures;
+                this.event.closureItems = GrammarMetrics.this.closureItems;
+                this.event.duplicateGotoTargets = GrammarMetrics.this.duplicateGotoTargets;
+                this.event.tableFillRatio = GrammarMetrics.this.tableFillRatio;
+                this.event.commit();
+            }
+        }
+    }
+
+    private final long[] phaseNanos;
+    private int states;
+    private long closures;
+    private long closureItems;
+    private long duplicateGotoTargets;
+    private double tableFillRatio;
+
+    public GrammarMetrics() {
+        this.phaseNanos = new long[Phase.values().length];
+    }
+
+    public Timer start(Phase phase) {
+        return new Timer(phase);
+    }
+
+    public void reset() {
+        Arrays.fill(this.phaseNanos, 0);
+        this.states = 0;
+        this.closures = 0;
+        this.closureItems = 0;
+        this.duplicateGotoTargets = 0;
+        this.tableFillRatio = 0;
+    }
+
+    /**
+     * @param closures closures computed while building, more than the states if states were merged or re-expanded
+     * @param closureItems items of all states, the sum of the closure sizes
+     * @param duplicateGotoTargets transitions whose target kernel already was a state
+     */
+    void setAutomaton(int states, long closures, long closureItems, long duplicateGotoTargets) {
+        this.states = states;
+        this.closures = closures;
+        this.closureItems = closureItems;
+        this.duplicateGotoTargets = duplicateGotoTargets;
+    }
+
+    void setTableFillRatio(double tableFillRatio) {
+        this.tableFillRatio = tableFillRatio;
+    }
+
+    public long getPhaseNanos(Phase phase) {
+        return this.phaseNanos[phase.ordinal()];
+    }
+
+    public int getStates() {
+        return this.states;
+    }
+
+    public long getClosures() {
+        return this.closures;
+    }
+
+    public long getClosureItems() {
+        return this.closureItems;
+    }
+
+    public long getDuplicateGotoTargets() {
+        return this.duplicateGotoTargets;
+    }
+
+    /**
+     * @return share of the ACTION and GOTO cells which are not empty, in the last computed table
+     */
+    public double getTableFillRatio() {
+        return this.tableFillRatio;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder("Metrics:\n");
+        for(Phase phase: Phase.values()) {
+            stringBuilder.append(String.format(Locale.ROOT, "%-14s %10.3f ms\n", phase, this.phaseNanos[phase.ordinal()] / 1e6));
+        }
+        stringBuilder.append("States: ").append(this.states).append('\n');
+        stringBuilder.append("Closures computed: ").append(this.closures).append('\n');
+        stringBuilder.append("Closure items: ").append(this.closureItems).append('\n');
+        stringBuilder.append("Duplicate goto targets: ").append(this.duplicateGotoTargets).append('\n');
+        stringBuilder.append(String.format(Locale.ROOT, "Table fill ratio: %.4f\n", this.tableFillRatio));
+        return stringBuilder.toString();
+    }
+}
@@ -0,0 +1,93 @@
+package grammar;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from a state kernel (sorted packed items) to the id of the state.
+ * Ids are handed out in insertion order, and the hash of every kernel is stored next to it
+ * so that a probe only compares the arrays when the hashes match.
+ */
+public class KernelTable {
+    private static final int EMPTY = -1;
+
+    private int[] slots;
+    private int[][] kernels;
+    private int[] hashes;
+    private int size;
+
+    public KernelTable() {
+        this.slots = new int[64];
+        Arrays.fill(this.slots, EMPTY);
+        this.kernels = new int[32][];
+        this.hashes = new int[32];
+        this.size = 0;
+    }
+
+    public static int hash(int[] kernel) {
+        int hash = 1;
+        for(int item: kernel) {
+            hash = 31 * hash + item;
+        }
+        //spread the bits, the table size is a power of two
+        return hash ^ (hash >>> 16);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int[] getKernel(int id) {
+        return this.kernels[id];
+    }
+
+    /**
+     * @return id of the state with this kernel, or -1 if the kernel was not added yet
+     */
+    public int indexOf(int[] kernel, int hash) {
+        int mask = this.slots.length - 1;
+        for(int slot = hash & mask; this.slots[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int id = this.slots[slot];
+            if(this.hashes[id] == hash && Arrays.equals(this.kernels[id], kernel)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a kernel which is not in the table yet
+     * @return the id given to the kernel
+     */
+    public int add(int[] kernel, int hash) {
+        if(this.size == this.kernels.length) {
+            this.kernels = Arrays.copyOf(this.kernels, this.size * 2);
+            this.hashes = Arrays.copyOf(this.hashes, this.size * 2);
+        }
+        if(2 * (this.size + 1) > this.slots.length) {
+            this.rehash();
+        }
+
+        int id = this.size++;
+        this.kernels[id] = kernel;
+        this.hashes[id] = hash;
+        this.insertIntoSlots(id);
+        return id;
+    }
+
+    private void insertIntoSlots(int id) {
+        int mask = this.slots.length - 1;
+        int slot = this.hashes[id] & mask;
+        while(this.slots[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        this.slots[slot] = id;
+    }
+
+    private void rehash() {
+        this.slots = new int[this.slots.length * 2];
+        Arrays.fill(this.slots, EMPTY);
+        for(int id=0; id<this.size; id++) {
+            this.insertIntoSlots(id);
+        }
+    }
+}
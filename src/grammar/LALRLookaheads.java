@@ -0,0 +1,235 @@
+package grammar;
+
+import model.State;
+
+import java.util.Arrays;
+
+/**
+ * LALR(1) lookaheads of the reductions of an LR(0) automaton, computed with the relations of DeRemer and Pennello
+ * instead of canonical LR(1) item sets. Nodes are the non-terminal transitions (p, A) of the automaton:
+ * <ul>
+ *     <li>DR(p, A): terminals shifted directly in goto(p, A)</li>
+ *     <li>(p, A) reads (r, C) if r = goto(p, A) and C is nullable, Read = DR closed over reads</li>
+ *     <li>(p, A) includes (p', B) if B -> beta A gamma, gamma is nullable and p' reaches p on beta,
+ *     Follow = Read closed over includes</li>
+ *     <li>(q, A -> omega) lookback (p, A) if p reaches q on omega, LA(q, A -> omega) = union of those Follow sets</li>
+ * </ul>
+ * Both closures are taken with {@link Digraph}.
+ */
+public class LALRLookaheads {
+    private final CompiledGrammar compiledGrammar;
+    private final LR0Grammar grammar;
+    private final FirstAndFollowSets firstAndFollowSets;
+
+    //non-terminal transition number of every transition of the automaton, -1 for terminal transitions
+    private final int[] nonTerminalTransition;
+    private int nonTerminalTransitionCount;
+
+    //reductions of state s are [reductionsStart[s], reductionsStart[s+1]) with their production and lookahead set
+    private final int[] reductionsStart;
+    private final int[] reductionProduction;
+    private final long[][] lookaheads;
+
+    public LALRLookaheads(LR0Grammar grammar) {
+        this.grammar = grammar;
+        this.compiledGrammar = grammar.compile();
+        this.firstAndFollowSets = grammar.getFirstAndFollowSets();
+
+        int stateCount = grammar.getStateCount();
+        int transitionCount = grammar.getTransitionsEnd(stateCount - 1);
+        this.nonTerminalTransition = new int[transitionCount];
+        for(int transition=0; transition<transitionCount; transition++) {
+            this.nonTerminalTransition[transition] = this.compiledGrammar.isNonTerminal(grammar.getTransitionSymbol(transition))
+                    ? this.nonTerminalTransitionCount++
+                    : -1;
+        }
+
+        int reductionCount = 0;
+        this.reductionsStart = new int[stateCount + 1];
+        for(int stateNumber=0; stateNumber<stateCount; stateNumber++) {
+            this.reductionsStart[stateNumber] = reductionCount;
+            for(int item: grammar.getState(stateNumber).getPackedItems()) {
+                if(this.compiledGrammar.isReductionItem(item)) {
+                    reductionCount++;
+                }
+            }
+        }
+        this.reductionsStart[stateCount] = reductionCount;
+
+        this.reductionProduction = new int[reductionCount];
+        this.lookaheads = new long[reductionCount][this.firstAndFollowSets.getWords()];
+        for(int stateNumber=0; stateNumber<stateCount; stateNumber++) {
+            int reduction = this.reductionsStart[stateNumber];
+            for(int item: grammar.getState(stateNumber).getPackedItems()) {
+                if(this.compiledGrammar.isReductionItem(item)) {
+                    this.reductionProduction[reduction++] = this.compiledGrammar.getItemProduction(item);
+                }
+            }
+        }
+
+        this.compute();
+    }
+
+    private void compute() {
+        CompiledGrammar compiledGrammar = this.compiledGrammar;
+        LR0Grammar grammar = this.grammar;
+        int count = this.nonTerminalTransitionCount;
+
+        long[][] sets = new long[count][this.firstAndFollowSets.getWords()];
+        int[][] reads = new int[count][];
+        int[] readsCount = new int[count];
+        int[][] includes = new int[count][];
+        int[] includesCount = new int[count];
+
+        //lookback edges, reduction slot -> non-terminal transition
+        int[] lookbackReduction = new int[16];
+        int[] lookbackTransition = new int[16];
+        int lookbackCount = 0;
+
+        //restNullable[i]: symbols i.. of the current right side derive epsilon
+        boolean[] restNullable = new boolean[16];
+
+        for(int p=0; p<grammar.getStateCount(); p++) {
+            for(int transition=grammar.getTransitionsStart(p); transition<grammar.getTransitionsEnd(p); transition++) {
+                int node = this.nonTerminalTransition[transition];
+                if(node < 0) {
+                    continue;
+                }
+
+                //DR and reads, from the transitions of the target state
+                int r = grammar.getTransitionTarget(transition);
+                for(int next=grammar.getTransitionsStart(r); next<grammar.getTransitionsEnd(r); next++) {
+                    int symbol = grammar.getTransitionSymbol(next);
+                    if(compiledGrammar.isTerminal(symbol)) {
+                        sets[node][symbol >>> 6] |= 1L << symbol;
+                    } else if(this.firstAndFollowSets.isNullable(symbol)) {
+                        addEdge(reads, readsCount, node, this.nonTerminalTransition[next]);
+                    }
+                }
+
+                //includes and lookback, walking every right side of A from p
+                int leftSide = grammar.getTransitionSymbol(transition);
+                for(int production=compiledGrammar.getProductionsStart(leftSide); production<compiledGrammar.getProductionsEnd(leftSide); production++) {
+                    int length = compiledGrammar.getProductionLength(production);
+                    if(restNullable.length <= length) {
+                        restNullable = new boolean[2 * length + 1];
+                    }
+                    restNullable[length] = true;
+                    for(int i=length-1; i>=0; i--) {
+                        restNullable[i] = restNullable[i + 1] && this.firstAndFollowSets.isNullable(compiledGrammar.getRightSideSymbol(production, i));
+                    }
+
+                    int stateNumber = p;
+                    for(int i=0; i<length; i++) {
+                        int symbol = compiledGrammar.getRightSideSymbol(production, i);
+                        int index = grammar.findTransitionIndex(stateNumber, symbol);
+                        if(compiledGrammar.isNonTerminal(symbol) && restNullable[i + 1]) {
+                            addEdge(includes, includesCount, this.nonTerminalTransition[index], node);
+                        }
+                        stateNumber = grammar.getTransitionTarget(index);
+                    }
+
+                    if(lookbackCount == lookbackReduction.length) {
+                        lookbackReduction = Arrays.copyOf(lookbackReduction, 2 * lookbackCount);
+                        lookbackTransition = Arrays.copyOf(lookbackTransition, 2 * lookbackCount);
+                    }
+                    lookbackReduction[lookbackCount] = this.findReduction(stateNumber, production);
+                    lookbackTransition[lookbackCount++] = node;
+                }
+            }
+        }
+
+        trim(reads, readsCount);
+        trim(includes, includesCount);
+        Digraph.traverse(reads, sets);
+        Digraph.traverse(includes, sets);
+
+        for(int lookback=0; lookback<lookbackCount; lookback++) {
+            FirstAndFollowSets.or(this.lookaheads[lookbackReduction[lookback]], sets[lookbackTransition[lookback]]);
+        }
+    }
+
+    private static void addEdge(int[][] relation, int[] counts, int from, int to) {
+        if(relation[from] == null) {
+            relation[from] = new int[4];
+        } else if(counts[from] == relation[from].length) {
+            relation[from] = Arrays.copyOf(relation[from], 2 * counts[from]);
+        }
+        relation[from][counts[from]++] = to;
+    }
+
+    private static void trim(int[][] relation, int[] counts) {
+        for(int from=0; from<relation.length; from++) {
+            if(relation[from] != null) {
+                relation[from] = Arrays.copyOf(relation[from], counts[from]);
+            }
+        }
+    }
+
+    //a state has only a few reductions, a linear scan is enough
+    private int findReduction(int stateNumber, int production) {
+        for(int reduction=this.reductionsStart[stateNumber]; reduction<this.reductionsStart[stateNumber + 1]; reduction++) {
+            if(this.reductionProduction[reduction] == production) {
+                return reduction;
+            }
+        }
+        throw new IllegalStateException("State " + stateNumber + " does not reduce by " + this.compiledGrammar.productionToString(production));
+    }
+
+    public int getNonTerminalTransitionCount() {
+        return this.nonTerminalTransitionCount;
+    }
+
+    /**
+     * @return lookahead terminals of the reduction by the production in the state as bitset over terminal ids,
+     * must not be modified
+     */
+    public long[] getLookaheads(int stateNumber, int production) {
+        return this.lookaheads[this.findReduction(stateNumber, production)];
+    }
+
+    //for testing
+    public static void main(String[] args) {
+        //assignments as in the dragon book, LALR(1) but not SLR(1)
+        LR0Grammar grammar = new LR0Grammar();
+        grammar.setFirstSymbol("S");
+        grammar.addTerminalSymbol("=");
+        grammar.addTerminalSymbol("*");
+        grammar.addTerminalSymbol("id");
+
+        grammar.addNonTerminalSymbol("S");
+        grammar.addNonTerminalSymbol("L");
+        grammar.addNonTerminalSymbol("R");
+
+        grammar.addRule("S -> L = R | R");
+        grammar.addRule("L -> * R | id");
+        grammar.addRule("R -> L");
+
+        //LR1 needs an automaton of its own, the LR(0) one is shared by the other modes
+        grammar.computeTransitions();
+        for(TableMode tableMode: new TableMode[] {TableMode.LR0, TableMode.SLR1, TableMode.LALR1}) {
+            grammar.setTableMode(tableMode);
+            grammar.computeParsingTable();
+            System.out.println(tableMode + ": " + grammar.getConflicts());
+        }
+
+        LALRLookaheads lalrLookaheads = new LALRLookaheads(grammar);
+        CompiledGrammar compiledGrammar = grammar.compile();
+        for(int stateNumber=0; stateNumber<grammar.getStateCount(); stateNumber++) {
+            State state = grammar.getState(stateNumber);
+            for(int item: state.getPackedItems()) {
+                if(compiledGrammar.isReductionItem(item) && !compiledGrammar.isAcceptingItem(item)) {
+                    int production = compiledGrammar.getItemProduction(item);
+                    long[] lookaheads = lalrLookaheads.getLookaheads(stateNumber, production);
+                    StringBuilder terminals = new StringBuilder();
+                    for(int terminal=0; terminal<compiledGrammar.getTerminalCount(); terminal++) {
+                        if((lookaheads[terminal >>> 6] & (1L << terminal)) != 0) {
+                            terminals.append(' ').append(compiledGrammar.getSymbolName(terminal));
+                        }
+                    }
+                    System.out.println(stateNumber + ": " + compiledGrammar.productionToString(production) + ",\t" + terminals);
+                }
+            }
+        }
+    }
+}
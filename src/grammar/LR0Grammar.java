@@ -1,134 +1,245 @@
 package grammar;
 
-import model.Item;
+import model.CompactParseTable;
 import model.LR0ParseTableElement;
 import model.ProductionRule;
+import model.RowDisplacementTable;
 import model.State;
+import writer.AutomatonWriter;
+import writer.OutputFormat;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
-import static constants.StringConstants.END_OF_LINE_SYMBOL;
-
 public class LR0Grammar extends Grammar {
     /**
-     * Map(State, Map(Symbol, State))
+     * States indexed by state number, numbered in breadth first order while the transitions are computed.
+     * Transitions of state s are [transitionsStart[s], transitionsStart[s+1]) in transitionSymbol and transitionTarget,
+     * sorted by symbol id.
      */
-    private final Map<State, Map<String, State>> transitions;
+    private State[] states;
+    private int[] transitionsStart;
+    private int[] transitionSymbol;
+    private int[] transitionTarget;
+    private boolean indexingComputed;
+
     private final List<Map<String, LR0ParseTableElement>> parseTable;
-    private State initialState;
-    private final Map<State, Integer> stateIndexing;
+    private CompactParseTable compactParseTable;
+
+    private TableMode tableMode;
+    private final List<String> conflicts;
+    //computed on the first use in LALR1 mode
+    private LALRLookaheads lalrLookaheads;
+    //set when the automaton was built in LR1 mode
+    private PagerLR1Builder lr1Builder;
 
     public LR0Grammar() {
         super();
-        this.transitions = new HashMap<>();
-        this.stateIndexing = new HashMap<>();
         this.parseTable = new ArrayList<>();
+        this.tableMode = TableMode.LR0;
+        this.conflicts = new ArrayList<>();
     }
 
-    private Item findInitialItem() {
-        String firstSymbol = super.getFirstSymbol();
-        String newNameForFirstSymbol = super.findNewName(firstSymbol);
-
-        List<String> rightOfItem = new ArrayList<>();
-        rightOfItem.add(firstSymbol);
-        rightOfItem.add(END_OF_LINE_SYMBOL);
+    public TableMode getTableMode() {
+        return this.tableMode;
+    }
 
-        return new Item(newNameForFirstSymbol, rightOfItem, Item.ItemType.NEW_ITEM);
+    public void setTableMode(TableMode tableMode) {
+        this.tableMode = tableMode;
+        this.compactParseTable = null;
     }
 
-    private Set<Item> findInitialItemSet() {
-        Item initalItem = this.findInitialItem();
-        Set<Item> set = new HashSet<>();
-        set.add(initalItem);
-        return set;
+    /**
+     * @return conflicts found by the last computation of the parsing table, empty if the grammar fits the table mode
+     */
+    public List<String> getConflicts() {
+        return Collections.unmodifiableList(this.conflicts);
     }
 
-    private void addToTransitions(State from, String transitionString, State to) {
-        if(!this.transitions.containsKey(from)) {
-            Map<String, State> map = new HashMap<>();
-            map.put(transitionString, to);
-            this.transitions.put(from, map);
-        } else {
-            this.transitions.get(from).put(transitionString, to);
+    /**
+     * Builds the LR(0) automaton, or the minimal LR(1) automaton of PagerLR1Builder in LR1 mode
+     */
+    @SuppressWarnings("try")
+    public void computeTransitions() {
+        if(this.tableMode == TableMode.LR1) {
+            this.computeLookaheadSets();
+        }
+        try (GrammarMetrics.Timer timer = super.getMetrics().start(GrammarMetrics.Phase.TRANSITIONS)) {
+            if(this.tableMode == TableMode.LR1) {
+                PagerLR1Builder builder = new PagerLR1Builder(super.compile(), super.getFirstAndFollowSets());
+                builder.build();
+                this.setAutomaton(builder.getStates(), builder.getTransitionsStart(), builder.getTransitionSymbol(), builder.getTransitionTarget(),
+                        builder.getCreatedStateCount());
+                this.lr1Builder = builder;
+            } else {
+                this.computeLR0Transitions();
+            }
         }
     }
 
-    private boolean checkStateAlreadyServed(State state) {
-        return this.transitions.containsKey(state);
+    /**
+     * Computes the FIRST and FOLLOW sets the lookaheads of every mode but LR0 are made of. They are timed as a
+     * phase of their own, so the phases using them compute them before starting their timer.
+     */
+    private void computeLookaheadSets() {
+        if(this.tableMode != TableMode.LR0) {
+            super.getFirstAndFollowSets();
+        }
     }
 
-    public void computeTransitions() {
-        Set<Item> initialItemSet = this.findInitialItemSet();
-        this.initialState = new State(initialItemSet, super.getProductionRules());
+    private void computeLR0Transitions() {
+        CompiledGrammar compiledGrammar = super.compile();
+        GotoPartitioner gotoPartitioner = new GotoPartitioner(compiledGrammar);
 
-        Queue<State> newStatesCreated = new ArrayDeque<>();
-        newStatesCreated.add(this.initialState);
+        //states are looked up by kernel, the closure is only taken for kernels which are new
+        KernelTable kernelTable = new KernelTable();
+        List<State> states = new ArrayList<>();
+        int[] transitionsStart = new int[16];
+        int[] transitionSymbol = new int[16];
+        int[] transitionTarget = new int[16];
+        int transitionCount = 0;
 
-        while(!newStatesCreated.isEmpty()) {
-            State currState = newStatesCreated.poll();
+        int[] initialKernel = initialKernel(compiledGrammar);
+        int initialHash = KernelTable.hash(initialKernel);
+        kernelTable.add(initialKernel, initialHash);
+        states.add(new State(initialKernel, initialHash, compiledGrammar));
 
-            //check if the state is already served
-            if(checkStateAlreadyServed(currState)) {
-                continue;
-            }
+        for(int stateId=0; stateId<states.size(); stateId++) {
+            State currState = states.get(stateId);
 
-            Set<String> stringTransitionPossible = new HashSet<>();
-            currState.getItems().forEach((item) -> {
-                if(!item.isReductionItem()) {
-                    stringTransitionPossible.add(item.getSymbolNextOfDotMarker());
+            if(stateId + 1 >= transitionsStart.length) {
+                transitionsStart = Arrays.copyOf(transitionsStart, 2 * transitionsStart.length);
+            }
+            transitionsStart[stateId] = transitionCount;
+
+            int successorCount = gotoPartitioner.partition(currState.getPackedItems());
+            for(int successor=0; successor<successorCount; successor++) {
+                int[] kernel = gotoPartitioner.getKernel(successor);
+                int hash = KernelTable.hash(kernel);
+                int toStateId = kernelTable.indexOf(kernel, hash);
+                if(toStateId < 0) {
+                    toStateId = kernelTable.add(kernel, hash);
+                    states.add(new State(kernel, hash, compiledGrammar));
                 }
-            });
-
-            for(String transitionString: stringTransitionPossible) {
-                Set<Item> nonClosureItemsForNewState = new HashSet<>();
-                currState.getItems().forEach((item) -> {
-                    if(!item.isReductionItem()) {
-                        if(item.getSymbolNextOfDotMarker().equals(transitionString)) {
-                            nonClosureItemsForNewState.add(item.moveDotMarkerAndReturnItem());
-                        }
-                    }
-                });
 
-                //create state based on the nonClosureItem computed
-                State newState = new State(nonClosureItemsForNewState, super.getProductionRules());
-                newStatesCreated.add(newState);
-
-                this.addToTransitions(currState, transitionString, newState);
+                if(transitionCount == transitionSymbol.length) {
+                    transitionSymbol = Arrays.copyOf(transitionSymbol, 2 * transitionCount);
+                    transitionTarget = Arrays.copyOf(transitionTarget, 2 * transitionCount);
+                }
+                transitionSymbol[transitionCount] = gotoPartitioner.getSymbol(successor);
+                transitionTarget[transitionCount++] = toStateId;
             }
         }
+        transitionsStart[states.size()] = transitionCount;
+
+        //every kernel is closed once, when its state is created
+        this.setAutomaton(states.toArray(new State[0]), Arrays.copyOf(transitionsStart, states.size() + 1),
+                Arrays.copyOf(transitionSymbol, transitionCount), Arrays.copyOf(transitionTarget, transitionCount), states.size());
     }
 
-    public void computeIndexingOfStates() {
-        int ind = 0;
+    /**
+     * Builds the same LR(0) automaton as computeTransitions, with the states expanded by a pool of worker threads.
+     * State numbers are reassigned afterwards in the breadth first order of computeTransitions,
+     * so the result does not depend on thread scheduling. The LR1 mode needs the automaton of computeTransitions.
+     */
+    @SuppressWarnings("try")
+    public void computeTransitionsInParallel(int parallelism) {
+        if(this.tableMode == TableMode.LR1) {
+            throw new IllegalStateException("The parallel builder only builds the LR(0) automaton, use computeTransitions in LR1 mode");
+        }
+        try (GrammarMetrics.Timer timer = super.getMetrics().start(GrammarMetrics.Phase.TRANSITIONS)) {
+            ParallelAutomatonBuilder builder = new ParallelAutomatonBuilder(super.compile(), parallelism);
+            builder.build();
+            this.setAutomaton(builder.getStates(), builder.getTransitionsStart(), builder.getTransitionSymbol(), builder.getTransitionTarget(),
+                    builder.getStates().length);
+        }
+    }
 
-        this.stateIndexing.put(this.initialState, ind++);
+    /**
+     * Lazy alternative to computeTransitions and computeCompactParsingTable for big grammars: states are only
+     * expanded when a parser reaches them, see LazyAutomaton. Needs the LR0 or SLR1 table mode.
+     * @param cacheCapacity maximum number of expanded states kept in memory
+     */
+    public LazyAutomaton createLazyAutomaton(int cacheCapacity) {
+        FirstAndFollowSets firstAndFollowSets = this.tableMode == TableMode.SLR1 ? super.getFirstAndFollowSets() : null;
+        return new LazyAutomaton(super.compile(), this.tableMode, firstAndFollowSets, cacheCapacity);
+    }
 
-        for (Map.Entry<State, Map<String, State>> mapElem : this.transitions.entrySet()) {
-            State fromState = mapElem.getKey();
-            if (!this.stateIndexing.containsKey(fromState)) {
-                this.stateIndexing.put(fromState, ind++);
-            }
+    //kernel of the initial state: S' -> . S $
+    static int[] initialKernel(CompiledGrammar compiledGrammar) {
+        return new int[] {compiledGrammar.getInitialItem(CompiledGrammar.AUGMENTED_PRODUCTION)};
+    }
 
-            for (Map.Entry<String, State> mapValueElem : mapElem.getValue().entrySet()) {
-                State toState = mapValueElem.getValue();
-                if (!this.stateIndexing.containsKey(toState)) {
-                    this.stateIndexing.put(toState, ind++);
-                }
-            }
+    /**
+     * @param closures closures computed by the builder, for the metrics
+     */
+    private void setAutomaton(State[] states, int[] transitionsStart, int[] transitionSymbol, int[] transitionTarget, int closures) {
+        this.states = states;
+        this.transitionsStart = transitionsStart;
+        this.transitionSymbol = transitionSymbol;
+        this.transitionTarget = transitionTarget;
+        this.indexingComputed = false;
+        this.lalrLookaheads = null;
+        this.lr1Builder = null;
+        this.compactParseTable = null;
+
+        long closureItems = 0;
+        for(State state: states) {
+            closureItems += state.getPackedItems().length;
         }
+        //every state but the initial one is the target of the transition which created it
+        super.getMetrics().setAutomaton(states.length, closures, closureItems, transitionSymbol.length - (states.length - 1));
     }
 
-    private State getStateFromIndex(int ind) {
-        for(Map.Entry<State, Integer> mapElement: this.stateIndexing.entrySet()) {
-            if(ind == mapElement.getValue()) {
-                return mapElement.getKey();
-            }
+    /**
+     * State numbers are already given in breadth first order by computeTransitions, state 0 being the initial state.
+     */
+    public void computeIndexingOfStates() {
+        if(this.states == null) {
+            System.out.println("Compute the transitions before running this function");
+            System.exit(-1);
         }
+        this.indexingComputed = true;
+    }
+
+    public int getStateCount() {
+        return this.states.length;
+    }
+
+    public State getState(int stateNumber) {
+        return this.states[stateNumber];
+    }
 
-        return null;
+    public int getTransitionsStart(int stateNumber) {
+        return this.transitionsStart[stateNumber];
+    }
+
+    public int getTransitionsEnd(int stateNumber) {
+        return this.transitionsStart[stateNumber + 1];
+    }
+
+    public int getTransitionSymbol(int transition) {
+        return this.transitionSymbol[transition];
+    }
+
+    public int getTransitionTarget(int transition) {
+        return this.transitionTarget[transition];
+    }
+
+    /**
+     * @return the state reached from stateNumber on symbol, or -1 if there is no such transition
+     */
+    public int findTransition(int stateNumber, int symbol) {
+        int index = this.findTransitionIndex(stateNumber, symbol);
+        return index < 0 ? -1 : this.transitionTarget[index];
+    }
+
+    /**
+     * @return index of the transition of stateNumber on symbol, negative if there is no such transition
+     */
+    public int findTransitionIndex(int stateNumber, int symbol) {
+        return Arrays.binarySearch(this.transitionSymbol, this.transitionsStart[stateNumber], this.transitionsStart[stateNumber + 1], symbol);
     }
 
     // for reducing
@@ -146,131 +257,324 @@ public class LR0Grammar extends Grammar {
         this.parseTable.get(stateNumber).put(transitionString, new LR0ParseTableElement(LR0ParseTableElement.ElementType.ACCEPT));
     }
 
-    private boolean parseTableIsNonEmptyForStateAndTransitionString(int stateNumber, String transitionString) {
-        return this.parseTable.get(stateNumber).containsKey(transitionString);
-    }
-
     private void createEmptyParsingTable() {
-        for(int i=0; i<this.stateIndexing.size(); i++) {
+        this.parseTable.clear();
+        for(int i=0; i<this.states.length; i++) {
             Map<String, LR0ParseTableElement> map = new HashMap<>();
             this.parseTable.add(map);
         }
     }
 
-    public void computeParsingTable() {
-        if(this.transitions.isEmpty()) {
-            System.out.println("Compute the transitions before running this function");
-            System.exit(-1);
+    /**
+     * @return terminals on which the production is reduced in the state, null for every terminal
+     */
+    private long[] reductionLookaheads(int stateNumber, int production) {
+        if(this.tableMode == TableMode.LR0) {
+            return null;
         }
 
-        this.createEmptyParsingTable();
+        CompiledGrammar compiledGrammar = super.compile();
+        if(production == CompiledGrammar.AUGMENTED_PRODUCTION) {
+            //S' -> S $ is only reached after $ was shifted, the lookahead stays at $
+            long[] endOfLine = new long[super.getFirstAndFollowSets().getWords()];
+            endOfLine[0] = 1L << CompiledGrammar.END_OF_LINE;
+            return endOfLine;
+        }
+        if(this.tableMode == TableMode.LR1) {
+            if(this.lr1Builder == null) {
+                throw new IllegalStateException("The automaton was not built in LR1 mode, compute the transitions in LR1 mode first");
+            }
+            return this.lr1Builder.getLookaheads(stateNumber, production);
+        }
+        if(this.tableMode == TableMode.LALR1) {
+            if(this.lalrLookaheads == null) {
+                this.lalrLookaheads = new LALRLookaheads(this);
+            }
+            return this.lalrLookaheads.getLookaheads(stateNumber, production);
+        }
+        return super.getFirstAndFollowSets().getFollow(compiledGrammar.getProductionLeftSide(production));
+    }
+
+    /**
+     * Fills the entries of one state, encoded as in CompactParseTable.
+     * Reductions are placed under the lookaheads of the table mode, then shifts and gotos are added.
+     * Conflicts are recorded in getConflicts and resolved like yacc does: shift wins over reduce,
+     * the lower production number wins between two reductions.
+     * @param actionRow indexed by terminal id
+     * @param gotoRow indexed by non-terminal id - terminal count
+     * @param recordConflicts false if the row was computed before and its conflicts are already recorded
+     */
+    private void computeTableRow(int stateNumber, int[] actionRow, int[] gotoRow, boolean recordConflicts) {
+        CompiledGrammar compiledGrammar = super.compile();
+        State fromState = this.states[stateNumber];
+        Arrays.fill(actionRow, CompactParseTable.ERROR);
+        Arrays.fill(gotoRow, 0);
+
+        for(int item: fromState.getPackedItems()) {
+            if(!compiledGrammar.isReductionItem(item)) {
+                continue;
+            }
 
-        for(int i=0; i<this.stateIndexing.size(); i++) {
-            State fromState = getStateFromIndex(i);
-            assert fromState != null;
-            int fromStateInt = i;
+            int production = compiledGrammar.getItemProduction(item);
+            //reduction, or accept for S' -> S $
+            int action = production == CompiledGrammar.AUGMENTED_PRODUCTION
+                    ? CompactParseTable.ACCEPT
+                    : CompactParseTable.reduce(production);
+            long[] lookaheads = this.reductionLookaheads(stateNumber, production);
 
-            //check if the fromState is an accepting state
-            if(fromState.isAcceptingState()) {
-                //for all terminal symbols, accepting
-                for(String terminal: super.getTerminalSymbols()) {
-                    this.addToParseTable(fromStateInt, terminal);
+            for(int terminal=0; terminal<actionRow.length; terminal++) {
+                if(lookaheads != null && (lookaheads[terminal >>> 6] & (1L << terminal)) == 0) {
+                    continue;
+                }
+                int existing = actionRow[terminal];
+                if(existing == CompactParseTable.ERROR) {
+                    actionRow[terminal] = action;
+                    continue;
                 }
 
-                continue;
+                //reduce - reduce conflict, accept counts as production 0
+                int existingProduction = existing == CompactParseTable.ACCEPT ? 0 : CompactParseTable.getReduceProduction(existing);
+                if(recordConflicts) {
+                    this.conflicts.add("Reduce - Reduce conflict: " + stateNumber + " state and symbol " + compiledGrammar.getSymbolName(terminal)
+                            + " between " + compiledGrammar.productionToString(existingProduction)
+                            + " and " + compiledGrammar.productionToString(production));
+                }
+                if(production < existingProduction) {
+                    actionRow[terminal] = action;
+                }
             }
+        }
 
+        for(int transition=this.transitionsStart[stateNumber]; transition<this.transitionsStart[stateNumber + 1]; transition++) {
+            int symbol = this.transitionSymbol[transition];
+            int toStateInt = this.transitionTarget[transition];
 
-            //check if the fromState is a reducing state
-            if(fromState.isReducingState()) {
-                Set<Item> reducingItems = fromState.getItemsWhichAreReducingItems();
-                if(reducingItems.size() > 1) {
-                    //reduce - reduce conflict
-                    System.out.println("Reduce - Reduce conflict: " + reducingItems);
-                    System.exit(-1);
+            if(compiledGrammar.isTerminal(symbol)) {
+                if(recordConflicts && actionRow[symbol] != CompactParseTable.ERROR) {
+                    //shift - reduce conflict
+                    this.conflicts.add("Shift - Reduce conflict: " + stateNumber + " state and symbol " + compiledGrammar.getSymbolName(symbol)
+                            + " between shift and " + CompactParseTable.actionToString(actionRow[symbol]));
                 }
+                actionRow[symbol] = CompactParseTable.shift(toStateInt);
+            } else {
+                gotoRow[symbol - compiledGrammar.getTerminalCount()] = toStateInt;
+            }
+        }
+    }
 
-                Iterator<Item> iterator = reducingItems.iterator();
-                Item reducingItem = iterator.next();
+    /**
+     * Computes the row of a state in the table of the current mode, encoded as in CompactParseTable, without
+     * storing it or recording its conflicts. Writers stream the table this way, one row at a time.
+     * @param actionRow indexed by terminal id
+     * @param gotoRow indexed by non-terminal id - terminal count
+     */
+    public void computeParsingTableRow(int stateNumber, int[] actionRow, int[] gotoRow) {
+        this.computeTableRow(stateNumber, actionRow, gotoRow, false);
+    }
 
-                ProductionRule productionRuleForItem = reducingItem.getCorrespondingProductionRuleForReducingItem();
+    @SuppressWarnings("try")
+    public void computeParsingTable() {
+        if(this.states == null) {
+            System.out.println("Compute the transitions before running this function");
+            System.exit(-1);
+        }
 
-                //for all terminal symbols, reduction
-                for(String terminal: super.getTerminalSymbols()) {
-                    this.addToParseTable(fromStateInt, productionRuleForItem, terminal);
+        this.computeLookaheadSets();
+        try (GrammarMetrics.Timer timer = super.getMetrics().start(GrammarMetrics.Phase.TABLE)) {
+            CompiledGrammar compiledGrammar = super.compile();
+            this.createEmptyParsingTable();
+            this.conflicts.clear();
+
+            int terminalCount = compiledGrammar.getTerminalCount();
+            int[] actionRow = new int[terminalCount];
+            int[] gotoRow = new int[compiledGrammar.getNonTerminalCount()];
+            long filledCells = 0;
+
+            for(int fromStateInt=0; fromStateInt<this.states.length; fromStateInt++) {
+                this.computeTableRow(fromStateInt, actionRow, gotoRow, true);
+                filledCells += countFilledCells(actionRow) + countFilledCells(gotoRow);
+
+                for(int terminal=0; terminal<terminalCount; terminal++) {
+                    int action = actionRow[terminal];
+                    String transitionString = compiledGrammar.getSymbolName(terminal);
+
+                    if(action == CompactParseTable.ACCEPT) {
+                        this.addToParseTable(fromStateInt, transitionString);
+                    } else if(CompactParseTable.isShift(action)) {
+                        this.addToParseTable(fromStateInt, CompactParseTable.getShiftState(action), transitionString, LR0ParseTableElement.ElementType.SHIFT);
+                    } else if(CompactParseTable.isReduce(action)) {
+                        ProductionRule productionRule = compiledGrammar.getProductionRule(CompactParseTable.getReduceProduction(action));
+                        this.addToParseTable(fromStateInt, productionRule, transitionString);
+                    }
                 }
 
-                continue;
+                for(int i=0; i<gotoRow.length; i++) {
+                    if(gotoRow[i] != 0) {
+                        String transitionString = compiledGrammar.getSymbolName(terminalCount + i);
+                        this.addToParseTable(fromStateInt, gotoRow[i], transitionString, LR0ParseTableElement.ElementType.GOTO);
+                    }
+                }
             }
 
-            for(Map.Entry<String, State> mapValueElem: this.transitions.get(fromState).entrySet()) {
-                String transitionString = mapValueElem.getKey();
-                int toStateInt = this.stateIndexing.get(mapValueElem.getValue());
+            this.setTableFillRatio(filledCells, actionRow.length + gotoRow.length);
+        }
+    }
 
-                if(this.parseTableIsNonEmptyForStateAndTransitionString(fromStateInt, transitionString)) {
-                    //shift - reduce conflict
-                    System.out.println("Shift - Reduce conflict: " + fromStateInt + " state and symbol " + transitionString);
-                    System.exit(-1);
-                }
+    private static int countFilledCells(int[] row) {
+        int count = 0;
+        for(int value: row) {
+            if(value != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void setTableFillRatio(long filledCells, int columns) {
+        long cells = (long) this.states.length * columns;
+        super.getMetrics().setTableFillRatio(cells == 0 ? 0 : (double) filledCells / cells);
+    }
 
-                if(super.isTerminalSymbol(transitionString)) {
-                    //shift
-                    this.addToParseTable(fromStateInt, toStateInt, transitionString,LR0ParseTableElement.ElementType.SHIFT);
-                } else if (super.isNonTerminalSymbol(transitionString)) {
-                    //goto
-                    this.addToParseTable(fromStateInt, toStateInt, transitionString, LR0ParseTableElement.ElementType.GOTO);
+    /**
+     * Computes the same table as computeParsingTable, with int encoded cells packed by row displacement.
+     * A state whose only action is one reduction (or accept) gets it as default action, which is not stored per cell.
+     * States which shift or reduce by several productions have no default, so error tokens are detected in them
+     * before any reduction is made.
+     */
+    @SuppressWarnings("try")
+    public CompactParseTable computeCompactParsingTable() {
+        if(this.states == null) {
+            System.out.println("Compute the transitions before running this function");
+            System.exit(-1);
+        }
+
+        this.computeLookaheadSets();
+        try (GrammarMetrics.Timer timer = super.getMetrics().start(GrammarMetrics.Phase.TABLE)) {
+            CompiledGrammar compiledGrammar = super.compile();
+            this.conflicts.clear();
+            int stateCount = this.states.length;
+            int terminalCount = compiledGrammar.getTerminalCount();
+            int[] actionRow = new int[terminalCount];
+            int[] gotoRow = new int[compiledGrammar.getNonTerminalCount()];
+
+            int[] defaultAction = new int[stateCount];
+            int[][] actionColumns = new int[stateCount][];
+            int[][] actionValues = new int[stateCount][];
+            int[][] gotoColumns = new int[stateCount][];
+            int[][] gotoValues = new int[stateCount][];
+
+            long filledCells = 0;
+
+            for(int stateNumber=0; stateNumber<stateCount; stateNumber++) {
+                this.computeTableRow(stateNumber, actionRow, gotoRow, true);
+                filledCells += countFilledCells(actionRow) + countFilledCells(gotoRow);
+
+                //the single reduction or accept of the state, ERROR if it shifts or has several
+                int defaultValue = CompactParseTable.ERROR;
+                for(int action: actionRow) {
+                    if(CompactParseTable.isShift(action) || (defaultValue != CompactParseTable.ERROR && action != CompactParseTable.ERROR
+                            && action != defaultValue)) {
+                        defaultValue = CompactParseTable.ERROR;
+                        break;
+                    }
+                    if(action != CompactParseTable.ERROR) {
+                        defaultValue = action;
+                    }
                 }
+                defaultAction[stateNumber] = defaultValue;
+
+                actionColumns[stateNumber] = this.collectCells(actionRow, defaultValue, false);
+                actionValues[stateNumber] = this.collectCells(actionRow, defaultValue, true);
+                gotoColumns[stateNumber] = this.collectCells(gotoRow, 0, false);
+                gotoValues[stateNumber] = this.collectCells(gotoRow, 0, true);
+            }
+
+            int productionCount = compiledGrammar.getProductionCount();
+            int[] productionLeftSide = new int[productionCount];
+            int[] productionLength = new int[productionCount];
+            for(int production=0; production<productionCount; production++) {
+                productionLeftSide[production] = compiledGrammar.getProductionLeftSide(production);
+                productionLength[production] = compiledGrammar.getProductionLength(production);
+            }
+
+            this.compactParseTable = new CompactParseTable(terminalCount, defaultAction,
+                    new RowDisplacementTable(actionColumns, actionValues),
+                    new RowDisplacementTable(gotoColumns, gotoValues),
+                    productionLeftSide, productionLength);
+            this.setTableFillRatio(filledCells, actionRow.length + gotoRow.length);
+        }
+        return this.compactParseTable;
+    }
+
+    //columns (or values) of the cells of the row which are neither empty nor equal to the default
+    private int[] collectCells(int[] row, int defaultValue, boolean values) {
+        int count = 0;
+        for(int value: row) {
+            if(value != 0 && value != defaultValue) {
+                count++;
+            }
+        }
+
+        int[] result = new int[count];
+        count = 0;
+        for(int column=0; column<row.length; column++) {
+            if(row[column] != 0 && row[column] != defaultValue) {
+                result[count++] = values ? row[column] : column;
             }
         }
+        return result;
+    }
+
+    public CompactParseTable getCompactParsingTable() {
+        return this.compactParseTable;
     }
 
     public void printIndexingOfStates() {
-        if(this.stateIndexing.isEmpty()) {
+        if(!this.indexingComputed) {
             System.out.println("Compute the indexing before running this function");
             System.exit(-1);
         }
 
-        System.out.println("Total States: " + this.stateIndexing.size());
+        System.out.println("Total States: " + this.states.length);
         System.out.println("Indexing of maps:");
-        for(int i=0; i<this.stateIndexing.size(); i++) {
-            System.out.println(i + " :-\n" + this.getStateFromIndex(i));
+        for(int i=0; i<this.states.length; i++) {
+            System.out.println(i + " :-\n" + this.states[i]);
         }
     }
 
     public void printIndexingOfStatesToFile(String path) throws IOException {
-        BufferedWriter writer = new BufferedWriter(new FileWriter(path));
-        if(this.stateIndexing.isEmpty()) {
-            writer.write("Compute the indexing before running this function");
+        this.printIndexingOfStatesToFile(path, OutputFormat.TEXT);
+    }
+
+    /**
+     * Streams the states to the file in the given format, see AutomatonWriter
+     */
+    @SuppressWarnings("try")
+    public void printIndexingOfStatesToFile(String path, OutputFormat format) throws IOException {
+        if(!this.indexingComputed) {
+            System.out.println("Compute the indexing before running this function");
             System.exit(-1);
         }
 
-        writer.write("Total States: " + this.stateIndexing.size() + "\n");
-        writer.write("Indexing of maps:\n");
-        for(int i=0; i<this.stateIndexing.size(); i++) {
-            writer.write(i + " :-\n" + this.getStateFromIndex(i) + "\n");
+        try (GrammarMetrics.Timer timer = super.getMetrics().start(GrammarMetrics.Phase.OUTPUT);
+             AutomatonWriter writer = AutomatonWriter.open(format, Path.of(path))) {
+            writer.writeStates(this);
         }
-        writer.close();
     }
 
     public void printTransitions() {
-        if(this.stateIndexing.isEmpty()) {
+        if(!this.indexingComputed) {
             System.out.println("Compute the indexing before running this function");
             System.exit(-1);
         }
 
+        CompiledGrammar compiledGrammar = super.compile();
         System.out.println("\nFollowing are the transitions:\n");
 
-        for (int fromStateInt=0; fromStateInt<this.stateIndexing.size(); fromStateInt++) {
-            State fromState = this.getStateFromIndex(fromStateInt);
-            Map<String, State> mapValues = this.transitions.get(fromState);
-
-            if(mapValues == null) {
-                continue;
-            }
-
-            for(Map.Entry<String, State> transitionState: mapValues.entrySet()) {
-                String transitionString = transitionState.getKey();
-                int toStateInt = this.stateIndexing.get(transitionState.getValue());
+        for (int fromStateInt=0; fromStateInt<this.states.length; fromStateInt++) {
+            for(int transition=this.transitionsStart[fromStateInt]; transition<this.transitionsStart[fromStateInt + 1]; transition++) {
+                String transitionString = compiledGrammar.getSymbolName(this.transitionSymbol[transition]);
+                int toStateInt = this.transitionTarget[transition];
 
                 System.out.println("From State: " + fromStateInt);
                 System.out.println("Transition String: " + transitionString);
@@ -283,34 +587,23 @@ public class LR0Grammar extends Grammar {
     }
 
     public void printTransitionsToFile(String path) throws IOException {
-        BufferedWriter writer = new BufferedWriter(new FileWriter(path));
+        this.printTransitionsToFile(path, OutputFormat.TEXT);
+    }
 
-        if(this.stateIndexing.isEmpty()) {
-            writer.write("Compute the indexing before running this function");
+    /**
+     * Streams the transitions to the file in the given format, see AutomatonWriter
+     */
+    @SuppressWarnings("try")
+    public void printTransitionsToFile(String path, OutputFormat format) throws IOException {
+        if(!this.indexingComputed) {
+            System.out.println("Compute the indexing before running this function");
             System.exit(-1);
         }
 
-        writer.write("Following are the transitions:\n");
-
-        for (int fromStateInt=0; fromStateInt<this.stateIndexing.size(); fromStateInt++) {
-            State fromState = this.getStateFromIndex(fromStateInt);
-            Map<String, State> mapValues = this.transitions.get(fromState);
-
-            if(mapValues == null) {
-                continue;
-            }
-
-            for(Map.Entry<String, State> transitionState: mapValues.entrySet()) {
-                String transitionString = transitionState.getKey();
-                int toStateInt = this.stateIndexing.get(transitionState.getValue());
-
-                writer.write("From State: " + fromStateInt + "\n");
-                writer.write("Transition String: " + transitionString + "\n");
-                writer.write("To State: " + toStateInt + "\n");
-                writer.write("\n");
-            }
+        try (GrammarMetrics.Timer timer = super.getMetrics().start(GrammarMetrics.Phase.OUTPUT);
+             AutomatonWriter writer = AutomatonWriter.open(format, Path.of(path))) {
+            writer.writeTransitions(this);
         }
-        writer.close();
     }
 
     private int findLengthOfMaxTableElement() {
@@ -351,32 +644,25 @@ public class LR0Grammar extends Grammar {
     }
 
     public void printParsingTableToFile(String path) throws IOException {
-        BufferedWriter writer = new BufferedWriter(new FileWriter(path));
-        writer.write("This is the parsing table:\n");
-
-        int lengthOfMaxTableElement = this.findLengthOfMaxTableElement() + 5;
-
-        //print headers
-
-        List<String> headerSymbols = new ArrayList<>(super.getTerminalSymbols());
-        headerSymbols.addAll(super.getNonTerminalSymbols());
+        this.printParsingTableToFile(path, OutputFormat.TEXT);
+    }
 
-        StringBuilder stringBuilder = new StringBuilder();
-        for(String symbol: headerSymbols) {
-            stringBuilder.append(String.format("%" + lengthOfMaxTableElement + "s", symbol));
+    /**
+     * Streams the parsing table of the current table mode to the file in the given format, see AutomatonWriter.
+     * The rows are computed one at a time with computeParsingTableRow, the maps of computeParsingTable are not needed.
+     */
+    @SuppressWarnings("try")
+    public void printParsingTableToFile(String path, OutputFormat format) throws IOException {
+        if(this.states == null) {
+            System.out.println("Compute the transitions before running this function");
+            System.exit(-1);
         }
-        stringBuilder.append("\n");
 
-        for(int i=0; i<this.parseTable.size(); i++) {
-            Map<String, LR0ParseTableElement> map = this.parseTable.get(i);
-            stringBuilder.append(i);
-            for(String symbol: headerSymbols) {
-                stringBuilder.append(String.format("%" + lengthOfMaxTableElement + "s", this.parseTable.get(i).get(symbol)));
-            }
-            stringBuilder.append("\n");
+        this.computeLookaheadSets();
+        try (GrammarMetrics.Timer timer = super.getMetrics().start(GrammarMetrics.Phase.OUTPUT);
+             AutomatonWriter writer = AutomatonWriter.open(format, Path.of(path))) {
+            writer.writeParsingTable(this);
         }
-        writer.write(stringBuilder.toString());
-        writer.close();
     }
 
     //for testing
@@ -422,5 +708,7 @@ public class LR0Grammar extends Grammar {
 
         grammar.computeParsingTable();
         grammar.printParsingTable();
+
+        System.out.println(grammar.computeCompactParsingTable());
     }
 }
@@ -0,0 +1,226 @@
+package grammar;
+
+import model.ActionGotoTable;
+import model.CompactParseTable;
+import model.State;
+import parser.ArrayTokenStream;
+import parser.TableDrivenParser;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LR automaton whose states are expanded only when a parser reaches them, see LR0Grammar.createLazyAutomaton.
+ * Kernels are numbered as they are discovered and kept for good, they are all that is needed to rebuild a state.
+ * The closure, the ACTION row and the transitions of a state are computed on its first use and kept in a cache
+ * of bounded size, the least recently used state being evicted first. An evicted state is expanded again from
+ * its kernel when it is reached the next time, and gets the same successor numbers as before.
+ * <p>
+ * State numbers follow the order of discovery, so they differ from the numbers of computeTransitions.
+ * Only the LR0 and SLR1 modes can be expanded state by state, LALR1 and LR1 lookaheads need the whole automaton.
+ * Conflicts are resolved like in computeParsingTable. Not thread safe, use one per parser thread.
+ */
+public class LazyAutomaton implements ActionGotoTable {
+    //ACTION row and transitions of one state
+    private static class Expansion {
+        private final int[] actions;
+        private final int[] symbols;
+        private final int[] targets;
+
+        private Expansion(int[] actions, int[] symbols, int[] targets) {
+            this.actions = actions;
+            this.symbols = symbols;
+            this.targets = targets;
+        }
+    }
+
+    private final CompiledGrammar compiledGrammar;
+    private final TableMode tableMode;
+    private final FirstAndFollowSets firstAndFollowSets;
+    private final GotoPartitioner gotoPartitioner;
+    private final KernelTable kernelTable;
+    private final Map<Integer, Expansion> cache;
+
+    //the last state looked up, parsers ask for the same state several times in a row
+    private int lastState;
+    private Expansion lastExpansion;
+
+    private long expansions;
+    private long evictions;
+
+    /**
+     * @param cacheCapacity maximum number of expanded states kept at the same time
+     */
+    public LazyAutomaton(CompiledGrammar compiledGrammar, TableMode tableMode, FirstAndFollowSets firstAndFollowSets, int cacheCapacity) {
+        if(tableMode != TableMode.LR0 && tableMode != TableMode.SLR1) {
+            throw new IllegalArgumentException("States can only be expanded lazily in the LR0 and SLR1 modes, not in " + tableMode);
+        }
+        this.compiledGrammar = compiledGrammar;
+        this.tableMode = tableMode;
+        this.firstAndFollowSets = firstAndFollowSets;
+        this.gotoPartitioner = new GotoPartitioner(compiledGrammar);
+        this.kernelTable = new KernelTable();
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Expansion> eldest) {
+                if(this.size() > Math.max(1, cacheCapacity)) {
+                    LazyAutomaton.this.evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        int[] initialKernel = LR0Grammar.initialKernel(compiledGrammar);
+        this.kernelTable.add(initialKernel, KernelTable.hash(initialKernel));
+        this.lastState = -1;
+    }
+
+    private Expansion expansion(int state) {
+        if(state == this.lastState) {
+            return this.lastExpansion;
+        }
+        Expansion expansion = this.cache.get(state);
+        if(expansion == null) {
+            expansion = this.expand(state);
+            this.cache.put(state, expansion);
+        }
+        this.lastState = state;
+        this.lastExpansion = expansion;
+        return expansion;
+    }
+
+    private Expansion expand(int state) {
+        this.expansions++;
+        int[] kernel = this.kernelTable.getKernel(state);
+        int[] items = new State(kernel, KernelTable.hash(kernel), this.compiledGrammar).getPackedItems();
+
+        int successorCount = this.gotoPartitioner.partition(items);
+        int[] symbols = new int[successorCount];
+        int[] targets = new int[successorCount];
+        for(int successor=0; successor<successorCount; successor++) {
+            int[] successorKernel = this.gotoPartitioner.getKernel(successor);
+            int hash = KernelTable.hash(successorKernel);
+            int target = this.kernelTable.indexOf(successorKernel, hash);
+            if(target < 0) {
+                target = this.kernelTable.add(successorKernel, hash);
+            }
+            symbols[successor] = this.gotoPartitioner.getSymbol(successor);
+            targets[successor] = target;
+        }
+
+        int[] actions = new int[this.compiledGrammar.getTerminalCount()];
+        Arrays.fill(actions, CompactParseTable.ERROR);
+        for(int item: items) {
+            if(this.compiledGrammar.isReductionItem(item)) {
+                this.addReduction(actions, this.compiledGrammar.getItemProduction(item));
+            }
+        }
+        //shift wins over reduce
+        for(int successor=0; successor<successorCount && this.compiledGrammar.isTerminal(symbols[successor]); successor++) {
+            actions[symbols[successor]] = CompactParseTable.shift(targets[successor]);
+        }
+        return new Expansion(actions, symbols, targets);
+    }
+
+    //reduces on every terminal in LR0 mode, on the FOLLOW set of the left side in SLR1 mode
+    private void addReduction(int[] actions, int production) {
+        int action = production == CompiledGrammar.AUGMENTED_PRODUCTION ? CompactParseTable.ACCEPT : CompactParseTable.reduce(production);
+        long[] lookaheads = null;
+        if(this.tableMode == TableMode.SLR1) {
+            if(production == CompiledGrammar.AUGMENTED_PRODUCTION) {
+                lookaheads = new long[this.firstAndFollowSets.getWords()];
+                lookaheads[0] = 1L << CompiledGrammar.END_OF_LINE;
+            } else {
+                lookaheads = this.firstAndFollowSets.getFollow(this.compiledGrammar.getProductionLeftSide(production));
+            }
+        }
+
+        for(int terminal=0; terminal<actions.length; terminal++) {
+            if(lookaheads != null && (lookaheads[terminal >>> 6] & (1L << terminal)) == 0) {
+                continue;
+            }
+            int existing = actions[terminal];
+            //the lower production wins, accept counts as production 0
+            int existingProduction = existing == CompactParseTable.ACCEPT ? 0 : CompactParseTable.getReduceProduction(existing);
+            if(existing == CompactParseTable.ERROR || production < existingProduction) {
+                actions[terminal] = action;
+            }
+        }
+    }
+
+    @Override
+    public int getAction(int state, int terminal) {
+        return this.expansion(state).actions[terminal];
+    }
+
+    @Override
+    public int getGoto(int state, int nonTerminal) {
+        Expansion expansion = this.expansion(state);
+        int index = Arrays.binarySearch(expansion.symbols, nonTerminal);
+        return index < 0 ? 0 : expansion.targets[index];
+    }
+
+    @Override
+    public int getProductionLeftSide(int production) {
+        return this.compiledGrammar.getProductionLeftSide(production);
+    }
+
+    @Override
+    public int getProductionLength(int production) {
+        return this.compiledGrammar.getProductionLength(production);
+    }
+
+    /**
+     * @return number of kernels discovered so far, expanded or not
+     */
+    public int getDiscoveredStateCount() {
+        return this.kernelTable.size();
+    }
+
+    public int getCachedStateCount() {
+        return this.cache.size();
+    }
+
+    /**
+     * @return number of closures computed, more than the expanded states if states were evicted and expanded again
+     */
+    public long getExpansionCount() {
+        return this.expansions;
+    }
+
+    public long getEvictionCount() {
+        return this.evictions;
+    }
+
+    //for testing
+    public static void main(String[] args) {
+        LR0Grammar grammar = new LR0Grammar();
+        grammar.setFirstSymbol("E");
+        grammar.addTerminalSymbol("+");
+        grammar.addTerminalSymbol("*");
+        grammar.addTerminalSymbol("(");
+        grammar.addTerminalSymbol(")");
+        grammar.addTerminalSymbol("id");
+
+        grammar.addNonTerminalSymbol("E");
+        grammar.addNonTerminalSymbol("T");
+        grammar.addNonTerminalSymbol("F");
+
+        grammar.addRule("E -> E + T | T");
+        grammar.addRule("T -> T * F | F");
+        grammar.addRule("F -> ( E ) | id");
+        grammar.setTableMode(TableMode.SLR1);
+
+        LazyAutomaton automaton = grammar.createLazyAutomaton(4);
+        CompiledGrammar compiledGrammar = grammar.compile();
+        String[] input = {"id", "*", "(", "id", "+", "id", ")", "$"};
+        int[] tokens = Arrays.stream(input).mapToInt(compiledGrammar::getSymbolId).toArray();
+
+        boolean accepted = new TableDrivenParser(automaton).parse(new ArrayTokenStream(tokens),
+                production -> System.out.println("Reduce: " + compiledGrammar.productionToString(production)));
+        System.out.println("Accepted: " + accepted + ", states discovered: " + automaton.getDiscoveredStateCount()
+                + ", expansions: " + automaton.getExpansionCount() + ", evictions: " + automaton.getEvictionCount());
+    }
+}
@@ -0,0 +1,430 @@
+package grammar;
+
+import model.State;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds a minimal LR(1) automaton with Pager's weak compatibility test: a new LR(1) state is merged into an
+ * existing state with the same LR(0) core while the automaton is built, unless merging could introduce a
+ * reduce - reduce conflict which the canonical LR(1) automaton does not have.
+ * Two states with kernel lookaheads L1 and L2 are weakly compatible if for every pair of kernel items i != j
+ * L1[i] and L2[j] (and L2[i] and L1[j]) are disjoint, or L1[i] and L1[j] or L2[i] and L2[j] already overlap.
+ * <p>
+ * When a merge adds lookaheads to a state, the state is expanded again so that its successors see them.
+ * States which are no longer reachable afterwards are dropped, the rest is numbered breadth first.
+ * The result has the power of canonical LR(1), with about as many states as LALR(1) for most grammars.
+ */
+public class PagerLR1Builder {
+    private final CompiledGrammar compiledGrammar;
+    private final FirstAndFollowSets firstAndFollowSets;
+    private final int words;
+    private final GotoPartitioner gotoPartitioner;
+
+    //LR(0) cores, every core keeps its State (the closure) and a linked list of the LR(1) states sharing it
+    private final KernelTable coreTable;
+    private final List<State> coreStates;
+    private int[] coreFirstState;
+
+    //LR(1) states while building
+    private int[] stateCore;
+    private int[] nextStateWithSameCore;
+    private long[][][] kernelLookaheads;
+    private int[][] successorSymbols;
+    private int[][] successorStates;
+    private int stateCount;
+
+    //lookaheads of the non-terminals in the closure of the state being expanded, indexed by non-terminal id - terminal count
+    private final long[][] closureLookaheads;
+    private final boolean[] inClosure;
+    //scratch of computeClosureLookaheads, the non-terminals of the closure and the propagation worklist,
+    //queued is all false between calls
+    private final int[] closureMembers;
+    private final int[] worklist;
+    private final boolean[] queued;
+    //propagateTo[B] are the non-terminals C with B -> C delta and delta nullable
+    private final int[][] propagateTo;
+
+    //result
+    private State[] states;
+    private int[] transitionsStart;
+    private int[] transitionSymbol;
+    private int[] transitionTarget;
+    private int[] reductionsStart;
+    private int[] reductionProduction;
+    private long[][] reductionLookaheads;
+
+    public PagerLR1Builder(CompiledGrammar compiledGrammar, FirstAndFollowSets firstAndFollowSets) {
+        this.compiledGrammar = compiledGrammar;
+        this.firstAndFollowSets = firstAndFollowSets;
+        this.words = firstAndFollowSets.getWords();
+        this.gotoPartitioner = new GotoPartitioner(compiledGrammar);
+
+        this.coreTable = new KernelTable();
+        this.coreStates = new ArrayList<>();
+        this.coreFirstState = new int[16];
+
+        this.stateCore = new int[16];
+        this.nextStateWithSameCore = new int[16];
+        this.kernelLookaheads = new long[16][][];
+        this.successorSymbols = new int[16][];
+        this.successorStates = new int[16][];
+
+        int nonTerminalCount = compiledGrammar.getNonTerminalCount();
+        this.closureLookaheads = new long[nonTerminalCount][this.words];
+        this.inClosure = new boolean[nonTerminalCount];
+        this.closureMembers = new int[nonTerminalCount];
+        this.worklist = new int[nonTerminalCount];
+        this.queued = new boolean[nonTerminalCount];
+        this.propagateTo = new int[nonTerminalCount][];
+
+        int terminalCount = compiledGrammar.getTerminalCount();
+        for(int nonTerminal=terminalCount; nonTerminal<compiledGrammar.getSymbolCount(); nonTerminal++) {
+            int[] targets = new int[compiledGrammar.getProductionsEnd(nonTerminal) - compiledGrammar.getProductionsStart(nonTerminal)];
+            int size = 0;
+            for(int p=compiledGrammar.getProductionsStart(nonTerminal); p<compiledGrammar.getProductionsEnd(nonTerminal); p++) {
+                if(compiledGrammar.getProductionLength(p) > 0) {
+                    int first = compiledGrammar.getRightSideSymbol(p, 0);
+                    if(compiledGrammar.isNonTerminal(first) && first != nonTerminal && firstAndFollowSets.addFirstOfRightSide(p, 1, new long[this.words])) {
+                        targets[size++] = first - terminalCount;
+                    }
+                }
+            }
+            this.propagateTo[nonTerminal - terminalCount] = Arrays.copyOf(targets, size);
+        }
+    }
+
+    public void build() {
+        int[] initialKernel = LR0Grammar.initialKernel(this.compiledGrammar);
+        //$ is shifted explicitly by S' -> S $, the initial item needs no lookahead
+        this.findOrAddState(initialKernel, new long[][] {new long[this.words]});
+
+        //states whose lookaheads grew are expanded again
+        int[] worklist = new int[16];
+        boolean[] queued = new boolean[16];
+        int head = 0, tail = 0;
+        worklist[tail++] = 0;
+        queued[0] = true;
+
+        while(head < tail) {
+            int state = worklist[head++];
+            queued[state] = false;
+
+            for(int successor: this.expand(state)) {
+                if(successor >= queued.length) {
+                    queued = Arrays.copyOf(queued, 2 * successor + 2);
+                }
+                if(!queued[successor]) {
+                    if(tail == worklist.length) {
+                        //compact the consumed part before growing
+                        System.arraycopy(worklist, head, worklist, 0, tail - head);
+                        tail -= head;
+                        head = 0;
+                        if(tail == worklist.length) {
+                            worklist = Arrays.copyOf(worklist, 2 * tail);
+                        }
+                    }
+                    worklist[tail++] = successor;
+                    queued[successor] = true;
+                }
+            }
+        }
+
+        this.renumber();
+    }
+
+    /**
+     * Computes the successors of the state and stores its transitions
+     * @return states which are new or whose lookaheads changed, they have to be expanded
+     */
+    private int[] expand(int state) {
+        State coreState = this.coreStates.get(this.stateCore[state]);
+        this.computeClosureLookaheads(coreState, this.kernelLookaheads[state]);
+
+        int[] kernel = coreState.getKernel();
+        int successorCount = this.gotoPartitioner.partition(coreState.getPackedItems());
+        int[] symbols = new int[successorCount];
+        int[] targets = new int[successorCount];
+        int[] changed = new int[successorCount];
+        int changedCount = 0;
+
+        for(int successor=0; successor<successorCount; successor++) {
+            int[] successorKernel = this.gotoPartitioner.getKernel(successor);
+            long[][] lookaheads = new long[successorKernel.length][];
+            for(int i=0; i<successorKernel.length; i++) {
+                //the item before advancing is either a kernel item or a closure item with the dot at the start
+                int item = successorKernel[i] - 1;
+                int kernelIndex = Arrays.binarySearch(kernel, item);
+                lookaheads[i] = kernelIndex >= 0
+                        ? this.kernelLookaheads[state][kernelIndex].clone()
+                        : this.closureLookaheads[this.compiledGrammar.getProductionLeftSide(this.compiledGrammar.getItemProduction(item)) - this.compiledGrammar.getTerminalCount()].clone();
+            }
+
+            int before = this.stateCount;
+            long result = this.findOrAddState(successorKernel, lookaheads);
+            int target = (int) result;
+            if(target >= before || (result >>> 32) != 0) {
+                changed[changedCount++] = target;
+            }
+            symbols[successor] = this.gotoPartitioner.getSymbol(successor);
+            targets[successor] = target;
+        }
+
+        this.successorSymbols[state] = symbols;
+        this.successorStates[state] = targets;
+        return Arrays.copyOf(changed, changedCount);
+    }
+
+    /**
+     * Lookaheads of the closure items: a closure item of B gets closureLookaheads[B], which is
+     * FIRST(beta) of every item A -> alpha . B beta in the state, plus the lookaheads of that item when beta is nullable.
+     */
+    private void computeClosureLookaheads(State coreState, long[][] lookaheads) {
+        CompiledGrammar grammar = this.compiledGrammar;
+        int terminalCount = grammar.getTerminalCount();
+        int[] kernel = coreState.getKernel();
+
+        //non-terminals of the closure are the left sides of items with the dot at the start
+        int[] members = this.closureMembers;
+        int memberCount = 0;
+        for(int item: coreState.getPackedItems()) {
+            if(grammar.getItemDot(item) == 0) {
+                int index = grammar.getProductionLeftSide(grammar.getItemProduction(item)) - terminalCount;
+                if(!this.inClosure[index]) {
+                    this.inClosure[index] = true;
+                    Arrays.fill(this.closureLookaheads[index], 0);
+                    members[memberCount++] = index;
+                }
+            }
+        }
+
+        for(int i=0; i<kernel.length; i++) {
+            int next = grammar.getNextSymbol(kernel[i]);
+            if(next >= 0 && grammar.isNonTerminal(next)) {
+                long[] into = this.closureLookaheads[next - terminalCount];
+                if(this.firstAndFollowSets.addFirstOfRightSide(grammar.getItemProduction(kernel[i]), grammar.getItemDot(kernel[i]) + 1, into)) {
+                    FirstAndFollowSets.or(into, lookaheads[i]);
+                }
+            }
+        }
+
+        //FIRST of what follows the first symbol of every closure production
+        for(int m=0; m<memberCount; m++) {
+            int nonTerminal = members[m] + terminalCount;
+            for(int p=grammar.getProductionsStart(nonTerminal); p<grammar.getProductionsEnd(nonTerminal); p++) {
+                if(grammar.getProductionLength(p) > 0 && grammar.isNonTerminal(grammar.getRightSideSymbol(p, 0))) {
+                    this.firstAndFollowSets.addFirstOfRightSide(p, 1, this.closureLookaheads[grammar.getRightSideSymbol(p, 0) - terminalCount]);
+                }
+            }
+        }
+
+        //propagate through B -> C delta with nullable delta until nothing changes
+        int[] worklist = this.worklist;
+        boolean[] queued = this.queued;
+        System.arraycopy(members, 0, worklist, 0, memberCount);
+        int size = memberCount;
+        for(int m=0; m<memberCount; m++) {
+            queued[members[m]] = true;
+        }
+        while(size > 0) {
+            int index = worklist[--size];
+            queued[index] = false;
+            for(int target: this.propagateTo[index]) {
+                if(FirstAndFollowSets.or(this.closureLookaheads[target], this.closureLookaheads[index]) && !queued[target]) {
+                    queued[target] = true;
+                    worklist[size++] = target;
+                }
+            }
+        }
+
+        for(int m=0; m<memberCount; m++) {
+            this.inClosure[members[m]] = false;
+        }
+    }
+
+    /**
+     * Finds a state with the same core which is weakly compatible and merges the lookaheads into it,
+     * or adds a new state.
+     * @return the state in the low 32 bits, 1 in the high bits if the lookaheads of an existing state grew
+     */
+    private long findOrAddState(int[] kernel, long[][] lookaheads) {
+        int hash = KernelTable.hash(kernel);
+        int core = this.coreTable.indexOf(kernel, hash);
+        if(core < 0) {
+            core = this.coreTable.add(kernel, hash);
+            this.coreStates.add(new State(kernel, hash, this.compiledGrammar));
+            if(core == this.coreFirstState.length) {
+                this.coreFirstState = Arrays.copyOf(this.coreFirstState, 2 * core);
+            }
+            this.coreFirstState[core] = -1;
+        }
+
+        for(int state=this.coreFirstState[core]; state>=0; state=this.nextStateWithSameCore[state]) {
+            if(this.isWeaklyCompatible(this.kernelLookaheads[state], lookaheads)) {
+                boolean grew = false;
+                for(int i=0; i<lookaheads.length; i++) {
+                    grew |= FirstAndFollowSets.or(this.kernelLookaheads[state][i], lookaheads[i]);
+                }
+                return grew ? (1L << 32) | state : state;
+            }
+        }
+
+        int state = this.stateCount++;
+        if(state == this.stateCore.length) {
+            this.stateCore = Arrays.copyOf(this.stateCore, 2 * state);
+            this.nextStateWithSameCore = Arrays.copyOf(this.nextStateWithSameCore, 2 * state);
+            this.kernelLookaheads = Arrays.copyOf(this.kernelLookaheads, 2 * state);
+            this.successorSymbols = Arrays.copyOf(this.successorSymbols, 2 * state);
+            this.successorStates = Arrays.copyOf(this.successorStates, 2 * state);
+        }
+        this.stateCore[state] = core;
+        this.kernelLookaheads[state] = lookaheads;
+        this.nextStateWithSameCore[state] = this.coreFirstState[core];
+        this.coreFirstState[core] = state;
+        return state;
+    }
+
+    private static boolean intersects(long[] a, long[] b) {
+        for(int i=0; i<a.length; i++) {
+            if((a[i] & b[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isWeaklyCompatible(long[][] existing, long[][] lookaheads) {
+        for(int i=0; i<lookaheads.length; i++) {
+            for(int j=i+1; j<lookaheads.length; j++) {
+                boolean crossing = intersects(existing[i], lookaheads[j]) || intersects(lookaheads[i], existing[j]);
+                if(crossing && !intersects(existing[i], existing[j]) && !intersects(lookaheads[i], lookaheads[j])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    //breadth first numbering of the reachable states, and the lookaheads of their reductions
+    private void renumber() {
+        int[] number = new int[this.stateCount];
+        Arrays.fill(number, -1);
+        int[] order = new int[this.stateCount];
+        int reachable = 0, transitionCount = 0;
+        number[0] = 0;
+        order[reachable++] = 0;
+        for(int i=0; i<reachable; i++) {
+            int[] targets = this.successorStates[order[i]];
+            transitionCount += targets.length;
+            for(int target: targets) {
+                if(number[target] < 0) {
+                    number[target] = reachable;
+                    order[reachable++] = target;
+                }
+            }
+        }
+
+        this.states = new State[reachable];
+        this.transitionsStart = new int[reachable + 1];
+        this.transitionSymbol = new int[transitionCount];
+        this.transitionTarget = new int[transitionCount];
+        this.reductionsStart = new int[reachable + 1];
+        List<Integer> productions = new ArrayList<>();
+        List<long[]> lookaheads = new ArrayList<>();
+
+        int transition = 0;
+        for(int i=0; i<reachable; i++) {
+            int state = order[i];
+            State coreState = this.coreStates.get(this.stateCore[state]);
+            this.states[i] = coreState;
+            this.transitionsStart[i] = transition;
+            for(int successor=0; successor<this.successorStates[state].length; successor++) {
+                this.transitionSymbol[transition] = this.successorSymbols[state][successor];
+                this.transitionTarget[transition++] = number[this.successorStates[state][successor]];
+            }
+
+            this.reductionsStart[i] = productions.size();
+            this.computeClosureLookaheads(coreState, this.kernelLookaheads[state]);
+            int[] kernel = coreState.getKernel();
+            for(int item: coreState.getPackedItems()) {
+                if(this.compiledGrammar.isReductionItem(item)) {
+                    int production = this.compiledGrammar.getItemProduction(item);
+                    int kernelIndex = Arrays.binarySearch(kernel, item);
+                    productions.add(production);
+                    lookaheads.add(kernelIndex >= 0
+                            ? this.kernelLookaheads[state][kernelIndex]
+                            : this.closureLookaheads[this.compiledGrammar.getProductionLeftSide(production) - this.compiledGrammar.getTerminalCount()].clone());
+                }
+            }
+        }
+        this.transitionsStart[reachable] = transition;
+        this.reductionsStart[reachable] = productions.size();
+        this.reductionProduction = productions.stream().mapToInt(Integer::intValue).toArray();
+        this.reductionLookaheads = lookaheads.toArray(new long[0][]);
+    }
+
+    public State[] getStates() {
+        return this.states;
+    }
+
+    public int[] getTransitionsStart() {
+        return this.transitionsStart;
+    }
+
+    public int[] getTransitionSymbol() {
+        return this.transitionSymbol;
+    }
+
+    public int[] getTransitionTarget() {
+        return this.transitionTarget;
+    }
+
+    /**
+     * @return number of LR(1) states created while building, including the ones dropped as unreachable
+     */
+    public int getCreatedStateCount() {
+        return this.stateCount;
+    }
+
+    /**
+     * @return lookahead terminals of the reduction by the production in the state (after renumbering)
+     * as bitset over terminal ids, must not be modified
+     */
+    public long[] getLookaheads(int stateNumber, int production) {
+        for(int reduction=this.reductionsStart[stateNumber]; reduction<this.reductionsStart[stateNumber + 1]; reduction++) {
+            if(this.reductionProduction[reduction] == production) {
+                return this.reductionLookaheads[reduction];
+            }
+        }
+        throw new IllegalStateException("State " + stateNumber + " does not reduce by " + this.compiledGrammar.productionToString(production));
+    }
+
+    //for testing
+    public static void main(String[] args) {
+        //LR(1) but not LALR(1), merging the two states of A -> c . and B -> c . gives a reduce - reduce conflict
+        LR0Grammar grammar = new LR0Grammar();
+        grammar.setFirstSymbol("S");
+        grammar.addTerminalSymbol("a");
+        grammar.addTerminalSymbol("b");
+        grammar.addTerminalSymbol("c");
+        grammar.addTerminalSymbol("d");
+        grammar.addTerminalSymbol("e");
+
+        grammar.addNonTerminalSymbol("S");
+        grammar.addNonTerminalSymbol("A");
+        grammar.addNonTerminalSymbol("B");
+
+        grammar.addRule("S -> a A d | b B d | a B e | b A e");
+        grammar.addRule("A -> c");
+        grammar.addRule("B -> c");
+
+        for(TableMode tableMode: TableMode.values()) {
+            grammar.setTableMode(tableMode);
+            grammar.computeTransitions();
+            grammar.computeParsingTable();
+            System.out.println(tableMode + ": " + grammar.getStateCount() + " states, conflicts " + grammar.getConflicts());
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package grammar;
+
+import model.State;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Builds the canonical collection of LR(0) states on a work stealing pool.
+ * Every state is a node in a concurrent kernel to node map, only the thread which inserts a node expands it,
+ * so each state is closed and expanded exactly once. When all workers are done the nodes are numbered
+ * breadth first from the initial state, visiting successors in symbol order, which gives the same numbering
+ * as the sequential LR0Grammar.computeTransitions.
+ */
+public class ParallelAutomatonBuilder {
+    private final CompiledGrammar compiledGrammar;
+    private final int parallelism;
+
+    private final ConcurrentHashMap<Node, Node> nodes;
+    private final AtomicInteger pendingTasks;
+    private final CountDownLatch finished;
+    private final AtomicReference<Throwable> failure;
+    private final ThreadLocal<GotoPartitioner> gotoPartitioner;
+
+    private State[] states;
+    private int[] transitionsStart;
+    private int[] transitionSymbol;
+    private int[] transitionTarget;
+
+    private static final class Node {
+        private final int[] kernel;
+        private final int hash;
+
+        //written once by the thread expanding the node
+        private State state;
+        private int[] symbols;
+        private Node[] targets;
+
+        private int stateNumber = -1;
+
+        private Node(int[] kernel) {
+            this.kernel = kernel;
+            this.hash = KernelTable.hash(kernel);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Node node = (Node) o;
+            return this.hash == node.hash && Arrays.equals(this.kernel, node.kernel);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    private final class ExpandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Node node;
+
+        private ExpandTask(Node node) {
+            this.node = node;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                expand(this.node);
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                if(pendingTasks.decrementAndGet() == 0) {
+                    finished.countDown();
+                }
+            }
+        }
+    }
+
+    public ParallelAutomatonBuilder(CompiledGrammar compiledGrammar, int parallelism) {
+        this.compiledGrammar = compiledGrammar;
+        this.parallelism = Math.max(1, parallelism);
+        this.nodes = new ConcurrentHashMap<>();
+        this.pendingTasks = new AtomicInteger();
+        this.finished = new CountDownLatch(1);
+        this.failure = new AtomicReference<>();
+        this.gotoPartitioner = ThreadLocal.withInitial(() -> new GotoPartitioner(compiledGrammar));
+    }
+
+    private void expand(Node node) {
+        node.state = new State(node.kernel, node.hash, this.compiledGrammar);
+
+        GotoPartitioner partitioner = this.gotoPartitioner.get();
+        int successorCount = partitioner.partition(node.state.getPackedItems());
+        int[] symbols = new int[successorCount];
+        Node[] targets = new Node[successorCount];
+
+        for(int successor=0; successor<successorCount; successor++) {
+            Node candidate = new Node(partitioner.getKernel(successor));
+            Node existing = this.nodes.putIfAbsent(candidate, candidate);
+            if(existing == null) {
+                //this thread created the state, so it is responsible for expanding it
+                this.pendingTasks.incrementAndGet();
+                new ExpandTask(candidate).fork();
+                existing = candidate;
+            }
+            symbols[successor] = partitioner.getSymbol(successor);
+            targets[successor] = existing;
+        }
+
+        node.symbols = symbols;
+        node.targets = targets;
+    }
+
+    public void build() {
+        Node initialNode = new Node(LR0Grammar.initialKernel(this.compiledGrammar));
+        this.nodes.put(initialNode, initialNode);
+
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        try {
+            this.pendingTasks.incrementAndGet();
+            pool.execute(new ExpandTask(initialNode));
+            this.finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while building the automaton", e);
+        } finally {
+            pool.shutdown();
+        }
+
+        if(this.failure.get() != null) {
+            throw new IllegalStateException("Building the automaton failed", this.failure.get());
+        }
+
+        this.renumber(initialNode);
+    }
+
+    //deterministic breadth first numbering, same order as the sequential construction
+    private void renumber(Node initialNode) {
+        List<Node> order = new ArrayList<>(this.nodes.size());
+        initialNode.stateNumber = 0;
+        order.add(initialNode);
+        int transitionCount = 0;
+
+        for(int i=0; i<order.size(); i++) {
+            Node node = order.get(i);
+            transitionCount += node.targets.length;
+            for(Node target: node.targets) {
+                if(target.stateNumber < 0) {
+                    target.stateNumber = order.size();
+                    order.add(target);
+                }
+            }
+        }
+
+        this.states = new State[order.size()];
+        this.transitionsStart = new int[order.size() + 1];
+        this.transitionSymbol = new int[transitionCount];
+        this.transitionTarget = new int[transitionCount];
+
+        int transition = 0;
+        for(int i=0; i<order.size(); i++) {
+            Node node = order.get(i);
+            this.states[i] = node.state;
+            this.transitionsStart[i] = transition;
+            for(int successor=0; successor<node.targets.length; successor++) {
+                this.transitionSymbol[transition] = node.symbols[successor];
+                this.transitionTarget[transition++] = node.targets[successor].stateNumber;
+            }
+        }
+        this.transitionsStart[order.size()] = transition;
+    }
+
+    public State[] getStates() {
+        return this.states;
+    }
+
+    public int[] getTransitionsStart() {
+        return this.transitionsStart;
+    }
+
+    public int[] getTransitionSymbol() {
+        return this.transitionSymbol;
+    }
+
+    public int[] getTransitionTarget() {
+        return this.transitionTarget;
+    }
+}
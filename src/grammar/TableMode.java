@@ -0,0 +1,15 @@
+package grammar;
+
+/**
+ * Decides under which lookahead terminals a reduction is placed in the parsing table
+ */
+public enum TableMode {
+    //reduce on every terminal
+    LR0,
+    //reduce on the terminals in FOLLOW of the left hand side
+    SLR1,
+    //reduce on the LALR(1) lookaheads, computed on the LR(0) automaton
+    LALR1,
+    //reduce on LR(1) lookaheads, computeTransitions builds the minimal LR(1) automaton of PagerLR1Builder
+    LR1
+}
@@ -0,0 +1,81 @@
+package grammar;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static constants.StringConstants.EPSILON;
+
+/**
+ * Read only Set of symbol names backed by a bitset over the terminal ids of a compiled grammar,
+ * optionally containing epsilon. Used to hand out FIRST and FOLLOW sets without copying them.
+ */
+public class TerminalSetView extends AbstractSet<String> {
+    private final CompiledGrammar compiledGrammar;
+    private final long[] bits;
+    private final boolean containsEpsilon;
+
+    public TerminalSetView(CompiledGrammar compiledGrammar, long[] bits, boolean containsEpsilon) {
+        this.compiledGrammar = compiledGrammar;
+        this.bits = bits;
+        this.containsEpsilon = containsEpsilon;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if(!(o instanceof String)) {
+            return false;
+        }
+        if(o.equals(EPSILON)) {
+            return this.containsEpsilon;
+        }
+        int symbol = this.compiledGrammar.getSymbolId((String) o);
+        return symbol >= 0 && this.compiledGrammar.isTerminal(symbol)
+                && (this.bits[symbol >>> 6] & (1L << symbol)) != 0;
+    }
+
+    @Override
+    public int size() {
+        int size = this.containsEpsilon ? 1 : 0;
+        for(long word: this.bits) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int wordIndex = 0;
+            private long word = bits.length > 0 ? bits[0] : 0;
+            private boolean epsilonReturned = !containsEpsilon;
+
+            private void skipEmptyWords() {
+                while(this.word == 0 && this.wordIndex + 1 < bits.length) {
+                    this.word = bits[++this.wordIndex];
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                this.skipEmptyWords();
+                return this.word != 0 || !this.epsilonReturned;
+            }
+
+            @Override
+            public String next() {
+                this.skipEmptyWords();
+                if(this.word != 0) {
+                    int symbol = (this.wordIndex << 6) + Long.numberOfTrailingZeros(this.word);
+                    this.word &= this.word - 1;
+                    return compiledGrammar.getSymbolName(symbol);
+                }
+                if(!this.epsilonReturned) {
+                    this.epsilonReturned = true;
+                    return EPSILON;
+                }
+                throw new NoSuchElementException();
+            }
+        };
+    }
+}
@@ -0,0 +1,237 @@
+package helperfunction;
+
+import grammar.GrammarMetrics;
+import grammar.LR0Grammar;
+import grammar.TableMode;
+import writer.OutputFormat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles many grammar files at the same time on a fixed pool of worker threads, one grammar per task.
+ * Every grammar gets its own folder in the output directory with the states, transitions and parsing table,
+ * and summary.csv lists the timings, state count and conflicts of every grammar. A grammar which can not be
+ * read or written is reported in the summary and does not stop the others.
+ */
+public class BatchCompiler {
+    public static final String SUMMARY_FILE = "summary.csv";
+
+    /**
+     * Outcome of one grammar, error is null if it was compiled
+     */
+    public static class Result {
+        private final Path grammarFile;
+        private final String outputName;
+        private int productions;
+        private int states;
+        private int conflicts;
+        private GrammarMetrics metrics;
+        private long totalNanos;
+        private String error;
+
+        private Result(Path grammarFile, String outputName) {
+            this.grammarFile = grammarFile;
+            this.outputName = outputName;
+        }
+
+        public Path getGrammarFile() {
+            return this.grammarFile;
+        }
+
+        public String getOutputName() {
+            return this.outputName;
+        }
+
+        public int getProductions() {
+            return this.productions;
+        }
+
+        public int getStates() {
+            return this.states;
+        }
+
+        public int getConflicts() {
+            return this.conflicts;
+        }
+
+        public GrammarMetrics getMetrics() {
+            return this.metrics;
+        }
+
+        public long getTotalNanos() {
+            return this.totalNanos;
+        }
+
+        public String getError() {
+            return this.error;
+        }
+    }
+
+    private final Path outputDirectory;
+    private final TableMode tableMode;
+    private final OutputFormat outputFormat;
+    private final int parallelism;
+
+    public BatchCompiler(Path outputDirectory, TableMode tableMode, OutputFormat outputFormat, int parallelism) {
+        this.outputDirectory = outputDirectory;
+        this.tableMode = tableMode;
+        this.outputFormat = outputFormat;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * @param directoryOrManifest a directory, whose .txt files are taken in name order, or a manifest file
+     *                            with one grammar path per line, relative to the manifest, # starting a comment
+     */
+    public static List<Path> listGrammars(Path directoryOrManifest) throws IOException {
+        if(Files.isDirectory(directoryOrManifest)) {
+            try (Stream<Path> files = Files.list(directoryOrManifest)) {
+                return files.filter(file -> Files.isRegularFile(file) && file.getFileName().toString().endsWith(".txt"))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+        }
+
+        Path base = directoryOrManifest.toAbsolutePath().getParent();
+        List<Path> grammars = new ArrayList<>();
+        for(String line: Files.readAllLines(directoryOrManifest, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if(!line.isEmpty() && !line.startsWith("#")) {
+                grammars.add(base.resolve(line));
+            }
+        }
+        return grammars;
+    }
+
+    /**
+     * Compiles the grammars and writes the summary
+     * @return results in the order of the grammars
+     */
+    public List<Result> compileAll(List<Path> grammarFiles) throws IOException {
+        Files.createDirectories(this.outputDirectory);
+
+        //folders are named after the files, numbered when two files have the same name
+        List<Result> results = new ArrayList<>();
+        Set<String> usedNames = new HashSet<>();
+        for(Path grammarFile: grammarFiles) {
+            String name = grammarFile.getFileName().toString().replaceFirst("\\.txt$", "");
+            String outputName = name;
+            for(int i=2; !usedNames.add(outputName); i++) {
+                outputName = name + "-" + i;
+            }
+            results.add(new Result(grammarFile, outputName));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(this.parallelism);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for(Result result: results) {
+                futures.add(pool.submit(() -> this.compile(result)));
+            }
+            for(Future<?> future: futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while compiling the grammars", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Compiling a grammar failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        this.writeSummary(results);
+        return results;
+    }
+
+    private void compile(Result result) {
+        long start = System.nanoTime();
+        try {
+            LR0Grammar grammar = ReadingInput.readAndCreateLR0Grammar(result.grammarFile.toString());
+            grammar.setTableMode(this.tableMode);
+            grammar.computeTransitions();
+            grammar.computeIndexingOfStates();
+            grammar.computeParsingTable();
+
+            Path directory = this.outputDirectory.resolve(result.outputName);
+            Files.createDirectories(directory);
+            String extension = "." + this.outputFormat.getExtension();
+            grammar.printIndexingOfStatesToFile(directory.resolve("IndexingOfStates" + extension).toString(), this.outputFormat);
+            grammar.printTransitionsToFile(directory.resolve("Transitions" + extension).toString(), this.outputFormat);
+            grammar.printParsingTableToFile(directory.resolve("ParsingTable" + extension).toString(), this.outputFormat);
+            ParseTableFile.write(grammar, directory.resolve("ParsingTable.bin").toString());
+            if(!grammar.getConflicts().isEmpty()) {
+                Files.write(directory.resolve("Conflicts.txt"), grammar.getConflicts(), StandardCharsets.UTF_8);
+            }
+
+            result.productions = grammar.compile().getProductionCount() - 1;
+            result.states = grammar.getStateCount();
+            result.conflicts = grammar.getConflicts().size();
+            result.metrics = grammar.getMetrics();
+        } catch (IOException | RuntimeException e) {
+            result.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+        result.totalNanos = System.nanoTime() - start;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private void writeSummary(List<Result> results) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(this.outputDirectory.resolve(SUMMARY_FILE), StandardCharsets.UTF_8)) {
+            writer.write("grammar,output,productions,states,conflicts");
+            for(GrammarMetrics.Phase phase: GrammarMetrics.Phase.values()) {
+                writer.write("," + phase.name().toLowerCase(Locale.ROOT) + "_ms");
+            }
+            writer.write(",total_ms,error\n");
+
+            for(Result result: results) {
+                writer.write("\"" + result.grammarFile.toString().replace("\"", "\"\"") + "\",\"" + result.outputName.replace("\"", "\"\"") + "\","
+                        + result.productions + "," + result.states + "," + result.conflicts);
+                for(GrammarMetrics.Phase phase: GrammarMetrics.Phase.values()) {
+                    writer.write("," + (result.metrics == null ? "" : millis(result.metrics.getPhaseNanos(phase))));
+                }
+                writer.write("," + millis(result.totalNanos) + ",");
+                if(result.error != null) {
+                    writer.write("\"" + result.error.replace("\"", "\"\"").replace('\n', ' ') + "\"");
+                }
+                writer.write("\n");
+            }
+        }
+    }
+
+    /**
+     * @return one line per grammar for the console
+     */
+    public static String summaryToString(List<Result> results) {
+        StringBuilder stringBuilder = new StringBuilder();
+        long totalNanos = 0;
+        for(Result result: results) {
+            totalNanos += result.totalNanos;
+            if(result.error != null) {
+                stringBuilder.append(String.format(Locale.ROOT, "%-32s failed: %s\n", result.outputName, result.error));
+            } else {
+                stringBuilder.append(String.format(Locale.ROOT, "%-32s %8d productions %8d states %6d conflicts %10s ms\n",
+                        result.outputName, result.productions, result.states, result.conflicts, millis(result.totalNanos)));
+            }
+        }
+        stringBuilder.append(String.format(Locale.ROOT, "%d grammars, %s ms of compile time in total\n", results.size(), millis(totalNanos)));
+        return stringBuilder.toString();
+    }
+}
@@ -0,0 +1,174 @@
+package helperfunction;
+
+import grammar.CompiledGrammar;
+import grammar.LR0Grammar;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Content addressed cache of the generated tables, one directory per grammar named by its fingerprint.
+ * The fingerprint covers the start symbol, the symbols and the productions in the order the compiled grammar numbers
+ * them, and the table mode, so grammars whose tables number productions or states differently never share an entry.
+ * A hit updates the modification time of the entry, and when the cache grows over its size limit the least recently
+ * used entries are deleted.
+ */
+public class GrammarCache {
+    //bump when the format of the cached files changes, old entries then stop matching
+    private static final int CACHE_VERSION = 2;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    public GrammarCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * @return hex SHA-256 of the compiled grammar and its table mode
+     */
+    public static String fingerprint(LR0Grammar grammar) {
+        CompiledGrammar compiledGrammar = grammar.compile();
+
+        //in the numbering of the compiled grammar, the cached tables refer to productions and states by number.
+        //symbols are written with their length, so no choice of separator can make two grammars collide
+        StringBuilder normalized = new StringBuilder();
+        normalized.append(CACHE_VERSION).append('\n').append(grammar.getTableMode()).append('\n');
+        appendSymbol(normalized, grammar.getFirstSymbol());
+        normalized.append('\n').append(compiledGrammar.getTerminalCount()).append(' ').append(compiledGrammar.getSymbolCount());
+        for(int symbol=0; symbol<compiledGrammar.getSymbolCount(); symbol++) {
+            appendSymbol(normalized, compiledGrammar.getSymbolName(symbol));
+        }
+        normalized.append('\n').append(compiledGrammar.getProductionCount());
+        for(int p=0; p<compiledGrammar.getProductionCount(); p++) {
+            normalized.append('\n').append(compiledGrammar.getProductionLeftSide(p));
+            for(int i=0; i<compiledGrammar.getProductionLength(p); i++) {
+                normalized.append(' ').append(compiledGrammar.getRightSideSymbol(p, i));
+            }
+        }
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for(byte b: digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            //every Java platform has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void appendSymbol(StringBuilder builder, String symbol) {
+        builder.append(' ').append(symbol.length()).append(':').append(symbol);
+    }
+
+    /**
+     * Copies the cached files of the fingerprint into the target directory
+     * @return false if the cache has no entry for the fingerprint
+     */
+    public boolean restore(String fingerprint, Path targetDirectory) throws IOException {
+        Path entry = this.directory.resolve(fingerprint);
+        if(!Files.isDirectory(entry)) {
+            return false;
+        }
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(entry)) {
+            files = stream.collect(Collectors.toList());
+        }
+        for(Path file: files) {
+            Files.copy(file, targetDirectory.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        return true;
+    }
+
+    /**
+     * Stores copies of the files under the fingerprint, then evicts least recently used entries over the size limit
+     */
+    public void store(String fingerprint, List<Path> files) throws IOException {
+        Path entry = this.directory.resolve(fingerprint);
+        //fill a temporary directory first, so a concurrent reader never sees half an entry
+        Path temporary = Files.createTempDirectory(this.directory, fingerprint + ".tmp");
+        for(Path file: files) {
+            Files.copy(file, temporary.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        try {
+            Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteRecursively(temporary);
+            //fine if another run stored the same grammar meanwhile
+            if(!Files.isDirectory(entry)) {
+                throw e;
+            }
+        }
+
+        this.evict(entry);
+    }
+
+    private void evict(Path keep) throws IOException {
+        List<Path> entries;
+        try (Stream<Path> stream = Files.list(this.directory)) {
+            entries = stream.filter(Files::isDirectory)
+                    .filter(path -> !path.getFileName().toString().contains(".tmp"))
+                    .collect(Collectors.toList());
+        }
+
+        long total = 0;
+        for(Path entry: entries) {
+            total += size(entry);
+        }
+
+        entries.sort(Comparator.comparing(GrammarCache::lastModified));
+        for(Path entry: entries) {
+            if(total <= this.maxBytes) {
+                break;
+            }
+            if(!entry.equals(keep)) {
+                total -= size(entry);
+                deleteRecursively(entry);
+            }
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long size(Path entry) throws IOException {
+        long size = 0;
+        try (Stream<Path> stream = Files.list(entry)) {
+            for(Path file: stream.collect(Collectors.toList())) {
+                size += Files.size(file);
+            }
+        }
+        return size;
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        try (Stream<Path> stream = Files.walk(path)) {
+            for(Path file: stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
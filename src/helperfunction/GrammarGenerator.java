@@ -0,0 +1,353 @@
+package helperfunction;
+
+import grammar.LR0Grammar;
+import grammar.TableMode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static constants.StringConstants.EPSILON;
+
+/**
+ * Seeded generator of synthetic grammars in the format read by {@link ReadingInput}, for scaling tests.
+ * A grammar is made of modules until it has about the requested number of productions. The start symbol
+ * chooses a module by a keyword of its own, and modules do not share non-terminals, so they do not interfere
+ * with each other. Module shapes:
+ * <ul>
+ *     <li>EXPRESSION_TOWER: one left recursive non-terminal per precedence level</li>
+ *     <li>STATEMENT_LIST: a list of assignments and keyword statements over a small expression tower</li>
+ *     <li>NESTED_BLOCKS: braces nested to the recursion depth, with possibly empty item lists</li>
+ *     <li>RANDOM: random right sides, references only reach recursionDepth non-terminals back or forward</li>
+ *     <li>MIXED: the shapes above in turn</li>
+ * </ul>
+ * The target class is guaranteed by construction:
+ * <ul>
+ *     <li>LR0: every alternative starts with a keyword of its own and there are no empty alternatives,
+ *     so every state has a single kernel item</li>
+ *     <li>SLR1: the structured shapes as they are (expression towers and statement lists are not LR(0)),
+ *     RANDOM modules get the keywords</li>
+ *     <li>LALR1: like SLR1, plus every fourth module is the assignment grammar S -> L = R | R, L -> * R | id, R -> L,
+ *     which is LALR(1) but not SLR(1)</li>
+ *     <li>ANY: no guarantee, RANDOM modules are left as generated</li>
+ * </ul>
+ */
+public class GrammarGenerator {
+    public enum Shape {
+        EXPRESSION_TOWER,
+        STATEMENT_LIST,
+        NESTED_BLOCKS,
+        RANDOM,
+        MIXED
+    }
+
+    public enum Target {
+        LR0,
+        SLR1,
+        LALR1,
+        ANY
+    }
+
+    private static final String[] OPERATORS = {"+", "-", "*", "/", "%", "<", ">", "==", "!=", "&&", "^", "<<", ">>"};
+
+    private final Random random;
+    private Shape shape;
+    private Target target;
+    private int productions;
+    private int nonTerminals;
+    private int terminals;
+    private int alternatives;
+    private int rightSideLength;
+    private int recursionDepth;
+
+    //grammar being generated
+    private final Set<String> terminalSymbols;
+    private final Set<String> nonTerminalSymbols;
+    private final Map<String, List<String>> rules;
+    //non-terminals of the module being generated
+    private final List<String> moduleNonTerminals;
+    private int productionCount;
+
+    public GrammarGenerator(long seed) {
+        this.random = new Random(seed);
+        this.shape = Shape.MIXED;
+        this.target = Target.SLR1;
+        this.productions = 1000;
+        this.nonTerminals = 12;
+        this.terminals = 8;
+        this.alternatives = 3;
+        this.rightSideLength = 4;
+        this.recursionDepth = 3;
+        this.terminalSymbols = new LinkedHashSet<>();
+        this.nonTerminalSymbols = new LinkedHashSet<>();
+        this.rules = new LinkedHashMap<>();
+        this.moduleNonTerminals = new ArrayList<>();
+    }
+
+    public void setShape(Shape shape) {
+        this.shape = shape;
+    }
+
+    public void setTarget(Target target) {
+        this.target = target;
+    }
+
+    //approximate number of productions of the whole grammar
+    public void setProductions(int productions) {
+        this.productions = productions;
+    }
+
+    //non-terminals of a RANDOM module, levels of an EXPRESSION_TOWER module
+    public void setNonTerminals(int nonTerminals) {
+        this.nonTerminals = Math.max(2, nonTerminals);
+    }
+
+    //terminals used by RANDOM modules
+    public void setTerminals(int terminals) {
+        this.terminals = Math.max(1, terminals);
+    }
+
+    //maximum number of alternatives of a RANDOM non-terminal, statement kinds of a STATEMENT_LIST module
+    public void setAlternatives(int alternatives) {
+        this.alternatives = Math.max(1, alternatives);
+    }
+
+    //maximum right side length of a RANDOM alternative
+    public void setRightSideLength(int rightSideLength) {
+        this.rightSideLength = Math.max(1, rightSideLength);
+    }
+
+    //nesting depth of NESTED_BLOCKS, reach of the references of RANDOM non-terminals
+    public void setRecursionDepth(int recursionDepth) {
+        this.recursionDepth = Math.max(1, recursionDepth);
+    }
+
+    private void addRule(String leftSide, String... rightSides) {
+        if(this.nonTerminalSymbols.add(leftSide)) {
+            this.moduleNonTerminals.add(leftSide);
+        }
+        List<String> alternatives = this.rules.computeIfAbsent(leftSide, key -> new ArrayList<>());
+        for(String rightSide: rightSides) {
+            if(!alternatives.contains(rightSide)) {
+                alternatives.add(rightSide);
+                this.productionCount++;
+            }
+        }
+    }
+
+    private void addTerminals(String... terminals) {
+        this.terminalSymbols.addAll(List.of(terminals));
+    }
+
+    private static String operator(int level) {
+        return level < OPERATORS.length ? OPERATORS[level] : "op" + level;
+    }
+
+    //E0 -> E0 op0 E1 | E1, ..., En -> ( E0 ) | id | num
+    private String expressionTower(String suffix, int levels) {
+        this.addTerminals("(", ")", "id", "num");
+        for(int level=0; level<levels; level++) {
+            this.addTerminals(operator(level));
+            this.addRule("E" + level + suffix, "E" + level + suffix + " " + operator(level) + " E" + (level + 1) + suffix, "E" + (level + 1) + suffix);
+        }
+        this.addRule("E" + levels + suffix, "( E0" + suffix + " )", "id", "num");
+        return "E0" + suffix;
+    }
+
+    private String statementList(String suffix) {
+        String expression = this.expressionTower("x" + suffix, 2 + this.random.nextInt(3));
+        this.addTerminals("=", ";", "(", ")", "id");
+        this.addRule("Stmts" + suffix, "Stmts" + suffix + " Stmt" + suffix, "Stmt" + suffix);
+
+        List<String> statements = new ArrayList<>();
+        statements.add("id = " + expression + " ;");
+        for(int kind=0; kind<this.alternatives; kind++) {
+            this.addTerminals("kw" + kind);
+            statements.add("kw" + kind + " ( " + expression + " ) ;");
+        }
+        this.addRule("Stmt" + suffix, statements.toArray(new String[0]));
+        return "Stmts" + suffix;
+    }
+
+    //Block_d -> { Items_d }, Items_d -> Items_d Item_d | empty, Item_d -> id ; | Block_(d+1)
+    private String nestedBlocks(String suffix) {
+        this.addTerminals("{", "}", "id", ";");
+        boolean emptyAllowed = this.target != Target.LR0;
+        for(int depth=0; depth<this.recursionDepth; depth++) {
+            String block = "Block" + depth + suffix;
+            String items = "Items" + depth + suffix;
+            String item = "Item" + depth + suffix;
+            if(emptyAllowed) {
+                this.addRule(block, "{ " + items + " }");
+                this.addRule(items, items + " " + item, EPSILON);
+            } else {
+                this.addRule(block, "{ " + items + " }", "{ }");
+                this.addRule(items, items + " " + item, item);
+            }
+            if(depth + 1 < this.recursionDepth) {
+                this.addRule(item, "id ;", "Block" + (depth + 1) + suffix);
+            } else {
+                this.addRule(item, "id ;");
+            }
+        }
+        return "Block0" + suffix;
+    }
+
+    private String randomModule(String suffix) {
+        for(int terminal=0; terminal<this.terminals; terminal++) {
+            this.addTerminals("t" + terminal);
+        }
+
+        for(int index=0; index<this.nonTerminals; index++) {
+            int alternativeCount = 1 + this.random.nextInt(this.alternatives);
+            String[] rightSides = new String[alternativeCount];
+            for(int alternative=0; alternative<alternativeCount; alternative++) {
+                int length = 1 + this.random.nextInt(this.rightSideLength);
+                StringBuilder rightSide = new StringBuilder();
+                for(int i=0; i<length; i++) {
+                    //the last alternative has only terminals, so every non-terminal derives a sentence
+                    boolean terminal = alternative == alternativeCount - 1 || this.random.nextInt(10) < 6;
+                    if(!terminal) {
+                        int reference = index - this.recursionDepth + this.random.nextInt(2 * this.recursionDepth + 1);
+                        reference = Math.max(0, Math.min(this.nonTerminals - 1, reference));
+                        rightSide.append(i > 0 ? " " : "").append("R").append(reference).append(suffix);
+                    } else {
+                        rightSide.append(i > 0 ? " " : "").append("t").append(this.random.nextInt(this.terminals));
+                    }
+                }
+                rightSides[alternative] = rightSide.toString();
+            }
+            this.addRule("R" + index + suffix, rightSides);
+        }
+        return "R0" + suffix;
+    }
+
+    //S -> L = R | R, L -> * R | id, R -> L
+    private String assignmentModule(String suffix) {
+        this.addTerminals("=", "*", "id");
+        this.addRule("A" + suffix, "L" + suffix + " = R" + suffix, "R" + suffix);
+        this.addRule("L" + suffix, "* R" + suffix, "id");
+        this.addRule("R" + suffix, "L" + suffix);
+        return "A" + suffix;
+    }
+
+    /**
+     * Puts a keyword of its own in front of every alternative of the module's non-terminals,
+     * which makes the module LR(0) as long as it has no empty alternatives
+     */
+    private void addKeywords() {
+        for(String nonTerminal: this.moduleNonTerminals) {
+            List<String> alternatives = this.rules.get(nonTerminal);
+            for(int i=0; i<alternatives.size(); i++) {
+                this.addTerminals("k" + i);
+                alternatives.set(i, "k" + i + " " + alternatives.get(i));
+            }
+        }
+    }
+
+    /**
+     * @return the grammar in the format of the input files
+     */
+    public String generateText() {
+        this.terminalSymbols.clear();
+        this.nonTerminalSymbols.clear();
+        this.rules.clear();
+        this.productionCount = 0;
+
+        String startSymbol = "Start";
+        this.nonTerminalSymbols.add(startSymbol);
+        this.rules.put(startSymbol, new ArrayList<>());
+        List<String> entries = new ArrayList<>();
+
+        for(int module=0; this.productionCount < this.productions; module++) {
+            String suffix = "_" + module;
+            this.moduleNonTerminals.clear();
+            Shape moduleShape = this.shape == Shape.MIXED ? Shape.values()[module % (Shape.values().length - 1)] : this.shape;
+
+            String entry;
+            if(this.target == Target.LALR1 && module % 4 == 0) {
+                entry = this.assignmentModule(suffix);
+            } else if(moduleShape == Shape.EXPRESSION_TOWER) {
+                entry = this.expressionTower(suffix, this.nonTerminals);
+            } else if(moduleShape == Shape.STATEMENT_LIST) {
+                entry = this.statementList(suffix);
+            } else if(moduleShape == Shape.NESTED_BLOCKS) {
+                entry = this.nestedBlocks(suffix);
+            } else {
+                entry = this.randomModule(suffix);
+            }
+
+            if(this.target == Target.LR0 || (moduleShape == Shape.RANDOM && this.target != Target.ANY && !entry.startsWith("A_"))) {
+                this.addKeywords();
+            }
+
+            this.addTerminals("m" + module);
+            entries.add("m" + module + " " + entry);
+            this.productionCount++;
+        }
+        this.rules.get(startSymbol).addAll(entries);
+
+        StringBuilder text = new StringBuilder();
+        text.append(startSymbol).append('\n');
+        text.append(String.join(" ", this.nonTerminalSymbols)).append('\n');
+        text.append(String.join(" ", this.terminalSymbols)).append('\n');
+        for(Map.Entry<String, List<String>> rule: this.rules.entrySet()) {
+            text.append(rule.getKey()).append(" -> ").append(String.join(" | ", rule.getValue())).append('\n');
+        }
+        return text.toString();
+    }
+
+    public void writeToFile(String path) throws IOException {
+        Files.writeString(Path.of(path), this.generateText(), StandardCharsets.UTF_8);
+    }
+
+    public LR0Grammar generate() {
+        try {
+            return ReadingInput.readAndCreateLR0Grammar(new BufferedReader(new StringReader(this.generateText())));
+        } catch (IOException e) {
+            //reading from a string does not fail
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return number of productions of the last generated grammar, without the augmented start production
+     */
+    public int getProductionCount() {
+        return this.productionCount;
+    }
+
+    //for testing: every shape and target, with the conflicts of every table mode
+    public static void main(String[] args) {
+        int productions = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        for(Target target: Target.values()) {
+            for(Shape shape: Shape.values()) {
+                GrammarGenerator generator = new GrammarGenerator(42);
+                generator.setShape(shape);
+                generator.setTarget(target);
+                generator.setProductions(productions);
+                LR0Grammar grammar = generator.generate();
+
+                StringBuilder line = new StringBuilder(target + " " + shape + ": " + generator.getProductionCount() + " productions");
+                for(TableMode tableMode: new TableMode[] {TableMode.LR0, TableMode.SLR1, TableMode.LALR1}) {
+                    grammar.setTableMode(tableMode);
+                    grammar.computeTransitions();
+                    grammar.computeParsingTable();
+                    line.append(", ").append(tableMode).append(" ").append(grammar.getStateCount()).append(" states ")
+                            .append(grammar.getConflicts().size()).append(" conflicts");
+                }
+                System.out.println(line);
+            }
+        }
+    }
+}
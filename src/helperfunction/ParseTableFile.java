@@ -0,0 +1,152 @@
+package helperfunction;
+
+import grammar.CompiledGrammar;
+import grammar.GrammarMetrics;
+import grammar.LR0Grammar;
+import model.CompactParseTable;
+import model.MappedParseTable;
+import model.RowDisplacementTable;
+import parser.ArrayTokenStream;
+import parser.TableDrivenParser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes the compact parsing table of a grammar in the binary format of {@link MappedParseTable}
+ * and maps such files back into memory.
+ */
+public class ParseTableFile {
+    /**
+     * Writes the compact parsing table of the grammar, computing it first if needed
+     */
+    @SuppressWarnings("try")
+    public static void write(LR0Grammar grammar, String path) throws IOException {
+        CompiledGrammar compiledGrammar = grammar.compile();
+        CompactParseTable table = grammar.getCompactParsingTable();
+        if(table == null) {
+            table = grammar.computeCompactParsingTable();
+        }
+        try (GrammarMetrics.Timer timer = grammar.getMetrics().start(GrammarMetrics.Phase.OUTPUT)) {
+            int symbolCount = compiledGrammar.getSymbolCount();
+            byte[][] names = new byte[symbolCount][];
+            int nameBytes = 0;
+            for(int symbol=0; symbol<symbolCount; symbol++) {
+                names[symbol] = compiledGrammar.getSymbolName(symbol).getBytes(StandardCharsets.UTF_8);
+                nameBytes += names[symbol].length;
+            }
+
+            int stateCount = table.getStateCount();
+            int productionCount = table.getProductionCount();
+            RowDisplacementTable actionTable = table.getActionTable();
+            RowDisplacementTable gotoTable = table.getGotoTable();
+
+            ByteBuffer buffer = ByteBuffer.allocate(MappedParseTable.sizeInBytes(symbolCount, stateCount, productionCount,
+                    actionTable.getPackedLength(), gotoTable.getPackedLength(), nameBytes));
+            buffer.putInt(MappedParseTable.MAGIC);
+            buffer.putInt(MappedParseTable.VERSION);
+            buffer.putInt(grammar.getTableMode().ordinal());
+            buffer.putInt(table.getTerminalCount());
+            buffer.putInt(symbolCount);
+            buffer.putInt(stateCount);
+            buffer.putInt(productionCount);
+            buffer.putInt(actionTable.getPackedLength());
+            buffer.putInt(gotoTable.getPackedLength());
+            buffer.putInt(nameBytes);
+
+            for(int state=0; state<stateCount; state++) {
+                buffer.putInt(table.getDefaultAction(state));
+            }
+            for(int production=0; production<productionCount; production++) {
+                buffer.putInt(table.getProductionLeftSide(production));
+            }
+            for(int production=0; production<productionCount; production++) {
+                buffer.putInt(table.getProductionLength(production));
+            }
+            for(RowDisplacementTable rowDisplacementTable: new RowDisplacementTable[] {actionTable, gotoTable}) {
+                buffer.asIntBuffer().put(rowDisplacementTable.getBase()).put(rowDisplacementTable.getCheck()).put(rowDisplacementTable.getNext());
+                buffer.position(buffer.position() + 4 * (stateCount + 2 * rowDisplacementTable.getPackedLength()));
+            }
+
+            int nameStart = 0;
+            for(int symbol=0; symbol<symbolCount; symbol++) {
+                buffer.putInt(nameStart);
+                nameStart += names[symbol].length;
+            }
+            buffer.putInt(nameStart);
+            for(byte[] name: names) {
+                buffer.put(name);
+            }
+            buffer.flip();
+
+            try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while(buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps the file read only, the table reads its cells straight from the mapping
+     */
+    public static MappedParseTable load(String path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            //the mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            return new MappedParseTable(buffer);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(path + ": " + e.getMessage(), e);
+        }
+    }
+
+    //for testing
+    public static void main(String[] args) throws IOException {
+        LR0Grammar grammar = new LR0Grammar();
+        grammar.setFirstSymbol("E");
+        grammar.addTerminalSymbol("+");
+        grammar.addTerminalSymbol("-");
+        grammar.addTerminalSymbol("(");
+        grammar.addTerminalSymbol(")");
+        grammar.addTerminalSymbol("id");
+
+        grammar.addNonTerminalSymbol("E");
+        grammar.addNonTerminalSymbol("T");
+
+        grammar.addRule("E -> E + T | E - T | T");
+        grammar.addRule("T -> ( E ) | id");
+
+        grammar.computeTransitions();
+        CompactParseTable compactParseTable = grammar.computeCompactParsingTable();
+
+        String path = System.getProperty("java.io.tmpdir") + "/ParsingTable.bin";
+        write(grammar, path);
+        MappedParseTable table = load(path);
+        System.out.println(table);
+
+        String[] input = {"id", "+", "(", "id", "-", "id", ")", "$"};
+        int[] tokens = Arrays.stream(input).mapToInt(table::getSymbolId).toArray();
+        boolean accepted = new TableDrivenParser(table).parse(new ArrayTokenStream(tokens),
+                production -> System.out.println("Reduce: " + production + " to " + table.getSymbolName(table.getProductionLeftSide(production))));
+        System.out.println("Accepted: " + accepted);
+
+        for(int state=0; state<table.getStateCount(); state++) {
+            for(int terminal=0; terminal<table.getTerminalCount(); terminal++) {
+                if(table.getAction(state, terminal) != compactParseTable.getAction(state, terminal)) {
+                    System.out.println("Different action in state " + state + " on " + table.getSymbolName(terminal));
+                }
+            }
+        }
+    }
+}
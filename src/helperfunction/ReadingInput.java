@@ -1,5 +1,6 @@
 package helperfunction;
 
+import grammar.GrammarMetrics;
 import grammar.LR0Grammar;
 
 import java.io.BufferedReader;
@@ -12,32 +13,40 @@ public class ReadingInput {
     public static LR0Grammar readAndCreateLR0Grammar(String path) throws IOException {
         File file = new File(path);
 
-        BufferedReader br = new BufferedReader(new FileReader(file));
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            return readAndCreateLR0Grammar(br);
+        }
+    }
 
+    /**
+     * Reads a grammar in the format of the input files: start symbol, non-terminals, terminals, then one rule per line
+     */
+    @SuppressWarnings("try")
+    public static LR0Grammar readAndCreateLR0Grammar(BufferedReader br) throws IOException {
         LR0Grammar grammar = new LR0Grammar();
+        try (GrammarMetrics.Timer timer = grammar.getMetrics().start(GrammarMetrics.Phase.READ)) {
+            String startSymbol = br.readLine();
+            grammar.setFirstSymbol(startSymbol);
 
-        String startSymbol = br.readLine();
-        grammar.setFirstSymbol(startSymbol);
-
-        String nonTerminalString = br.readLine();
+            String nonTerminalString = br.readLine();
 //        System.out.println("terminalSymbols read from input: " + terminalSymbols);
-        String[] nonTerminals = nonTerminalString.trim().split(" ");
-        grammar.addAllNonTerminalSymbolFromIterator(Arrays.stream(nonTerminals).iterator());
+            String[] nonTerminals = nonTerminalString.trim().split(" ");
+            grammar.addAllNonTerminalSymbolFromIterator(Arrays.stream(nonTerminals).iterator());
 
-        String terminalString = br.readLine();
+            String terminalString = br.readLine();
 //        System.out.println("Non Terminal symbols read from input: " + nonTerminalSymbols);
-        String[] terminals = terminalString.trim().split(" ");
-        grammar.addAllTerminalSymbolFromIterator(Arrays.stream(terminals).iterator());
+            String[] terminals = terminalString.trim().split(" ");
+            grammar.addAllTerminalSymbolFromIterator(Arrays.stream(terminals).iterator());
 
-        String input;
-        while((input = br.readLine()) != null) {
-            if(input.isEmpty()) {
-                continue;
-            }
+            String input;
+            while((input = br.readLine()) != null) {
+                if(input.isEmpty()) {
+                    continue;
+                }
 
-            grammar.addRule(input);
+                grammar.addRule(input);
+            }
         }
-
         return grammar;
     }
 }
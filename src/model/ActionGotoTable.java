@@ -0,0 +1,17 @@
+package model;
+
+/**
+ * Read access to an int encoded ACTION/GOTO table, see {@link CompactParseTable} for the encoding of the cells.
+ */
+public interface ActionGotoTable {
+    int getAction(int state, int terminal);
+
+    /**
+     * @return target state of the GOTO on the non-terminal symbol, 0 if there is none
+     */
+    int getGoto(int state, int nonTerminal);
+
+    int getProductionLeftSide(int production);
+
+    int getProductionLength(int production);
+}
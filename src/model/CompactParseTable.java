@@ -0,0 +1,133 @@
+package model;
+
+/**
+ * Parse table with every cell encoded as an int:
+ * shift to state s is +s, reduce by production p is -p, {@link #ACCEPT} and {@link #ERROR} are sentinels.
+ * State 0 is never the target of a shift and production 0 (S' -> S $) is never reduced, so the encoding is unambiguous.
+ * GOTO entries are the target state, 0 meaning no entry.
+ * <p>
+ * Symbols use the ids of the compiled grammar: terminals are [0, terminalCount), non-terminals follow them.
+ * A state may have a default action (its only reduction or accept, see LR0Grammar.computeCompactParsingTable),
+ * the remaining cells are stored in a {@link RowDisplacementTable}.
+ */
+public class CompactParseTable implements ActionGotoTable {
+    public static final int ERROR = 0;
+    public static final int ACCEPT = Integer.MIN_VALUE;
+
+    private final int terminalCount;
+    private final int[] defaultAction;
+    private final RowDisplacementTable actionTable;
+    private final RowDisplacementTable gotoTable;
+
+    //left side symbol and right side length of every production, needed to reduce
+    private final int[] productionLeftSide;
+    private final int[] productionLength;
+
+    public CompactParseTable(int terminalCount, int[] defaultAction, RowDisplacementTable actionTable,
+                             RowDisplacementTable gotoTable, int[] productionLeftSide, int[] productionLength) {
+        this.terminalCount = terminalCount;
+        this.defaultAction = defaultAction;
+        this.actionTable = actionTable;
+        this.gotoTable = gotoTable;
+        this.productionLeftSide = productionLeftSide;
+        this.productionLength = productionLength;
+    }
+
+    public static int shift(int state) {
+        return state;
+    }
+
+    public static int reduce(int production) {
+        return -production;
+    }
+
+    public static boolean isShift(int action) {
+        return action > 0;
+    }
+
+    public static boolean isReduce(int action) {
+        return action < 0 && action != ACCEPT;
+    }
+
+    public static int getShiftState(int action) {
+        return action;
+    }
+
+    public static int getReduceProduction(int action) {
+        return -action;
+    }
+
+    public static String actionToString(int action) {
+        if(action == ACCEPT) {
+            return "Accept";
+        } else if(isShift(action)) {
+            return "Shift: " + action;
+        } else if(isReduce(action)) {
+            return "Reduce: " + (-action);
+        }
+        return "Error";
+    }
+
+    public int getStateCount() {
+        return this.defaultAction.length;
+    }
+
+    public int getTerminalCount() {
+        return this.terminalCount;
+    }
+
+    public int getProductionCount() {
+        return this.productionLength.length;
+    }
+
+    @Override
+    public int getAction(int state, int terminal) {
+        int action = this.actionTable.get(state, terminal);
+        return action != ERROR ? action : this.defaultAction[state];
+    }
+
+    @Override
+    public int getGoto(int state, int nonTerminal) {
+        return this.gotoTable.get(state, nonTerminal - this.terminalCount);
+    }
+
+    public int getDefaultAction(int state) {
+        return this.defaultAction[state];
+    }
+
+    @Override
+    public int getProductionLeftSide(int production) {
+        return this.productionLeftSide[production];
+    }
+
+    @Override
+    public int getProductionLength(int production) {
+        return this.productionLength[production];
+    }
+
+    public RowDisplacementTable getActionTable() {
+        return this.actionTable;
+    }
+
+    public RowDisplacementTable getGotoTable() {
+        return this.gotoTable;
+    }
+
+    /**
+     * @return approximate size of the int arrays of the table in bytes
+     */
+    public long getSizeInBytes() {
+        long ints = this.defaultAction.length + this.productionLeftSide.length + this.productionLength.length;
+        ints += this.actionTable.getBase().length + 2L * this.actionTable.getPackedLength();
+        ints += this.gotoTable.getBase().length + 2L * this.gotoTable.getPackedLength();
+        return 4 * ints;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactParseTable: " + this.getStateCount() + " states, "
+                + this.actionTable.getPackedLength() + " action slots, "
+                + this.gotoTable.getPackedLength() + " goto slots, "
+                + this.getSizeInBytes() + " bytes";
+    }
+}
@@ -1,6 +1,7 @@
 package model;
 
 import constants.StringConstants;
+import grammar.CompiledGrammar;
 
 import java.util.*;
 
@@ -14,17 +15,45 @@ public class Item {
 
     private final String leftSide;
     private final List<String> rightSide;
+    private final int hashCode;
+
+    //set for the canonical items of an ItemPool, which are equal only to themselves within the pool
+    private final ItemPool pool;
+    private final int packedItem;
 
     public Item(String left, List<String> rightSide, ItemType itemType) {
         this.leftSide = left;
-        this.rightSide = new ArrayList<>(rightSide);
+        List<String> right = new ArrayList<>(rightSide);
 
         //remove epsilon on the right side
-        this.rightSide.remove(StringConstants.EPSILON);
+        right.remove(StringConstants.EPSILON);
 
         if(itemType == ItemType.NEW_ITEM) {
-            this.rightSide.add(0, DOTMARKER);
+            right.add(0, DOTMARKER);
         }
+        this.rightSide = Collections.unmodifiableList(right);
+        this.hashCode = Objects.hash(this.leftSide, this.rightSide);
+        this.pool = null;
+        this.packedItem = -1;
+    }
+
+    /**
+     * Canonical item of the pool, see ItemPool.get
+     * @param rightSide right side with the dot marker, not copied
+     */
+    Item(ItemPool pool, int packedItem, String left, List<String> rightSide) {
+        this.leftSide = left;
+        this.rightSide = Collections.unmodifiableList(rightSide);
+        this.hashCode = Objects.hash(this.leftSide, this.rightSide);
+        this.pool = pool;
+        this.packedItem = packedItem;
+    }
+
+    /**
+     * @return the packed item of a pooled item, -1 for an item created by the public constructor
+     */
+    public int getPackedItem() {
+        return this.packedItem;
     }
 
     public boolean isReductionItem() {
@@ -67,6 +96,9 @@ public class Item {
             System.out.println("Is a reduction item");
             return null;
         }
+        if(this.pool != null) {
+            return this.pool.get(this.pool.getCompiledGrammar().advance(this.packedItem));
+        }
 
         List<String> newRightSide = new ArrayList<>(rightSide);
 
@@ -76,41 +108,70 @@ public class Item {
         return new Item(leftSide, newRightSide, ItemType.DERIVED_ITEM);
     }
 
+    /**
+     * Items of a pool take the closure in the compiled grammar of the pool and return pooled items,
+     * the production rules are only read for items created by the public constructor
+     */
     public Set<Item> closure(List<ProductionRule> productionRules) {
+        if(this.pool != null) {
+            return this.pooledClosure();
+        }
+
+        Map<String, ProductionRule> productionRuleOfLeftSide = new HashMap<>();
+        for(ProductionRule productionRule: productionRules) {
+            productionRuleOfLeftSide.put(productionRule.getLeftHandSide(), productionRule);
+        }
+
         Set<Item> closureItem = new HashSet<>();
         closureItem.add(this);
 
-        boolean addedNew = true;
-        while(addedNew) {
-            addedNew = false;
-            Set<Item> toAdd = new HashSet<>();
-
-            for (Item currItem: closureItem) {
-                String nextSymbolOfDotMarker = currItem.getSymbolNextOfDotMarker();
+        //every non-terminal is expanded once, items added to the worklist are never rescanned
+        Set<String> expandedNonTerminals = new HashSet<>();
+        Deque<Item> worklist = new ArrayDeque<>();
+        worklist.add(this);
 
-                int indexInProductionRule = productionRules.indexOf(new ProductionRule(nextSymbolOfDotMarker));
+        while(!worklist.isEmpty()) {
+            Item currItem = worklist.poll();
+            String nextSymbolOfDotMarker = currItem.getSymbolNextOfDotMarker();
 
-                //checking if production rule is present
-                if(indexInProductionRule < 0) {
-                    continue;
-                }
+            //checking if production rule is present
+            ProductionRule productionRule = productionRuleOfLeftSide.get(nextSymbolOfDotMarker);
+            if(productionRule == null || !expandedNonTerminals.add(nextSymbolOfDotMarker)) {
+                continue;
+            }
 
-                ProductionRule productionRule = productionRules.get(indexInProductionRule);
-                String leftSideOfProductionRule = productionRule.getLeftHandSide();
-                for(List<String> rightHandSideOfProductionRule: productionRule.getRightHandSide()) {
-                    Item itemForParticularProductionRule = new Item(leftSideOfProductionRule, rightHandSideOfProductionRule, ItemType.NEW_ITEM);
-                    if (!closureItem.contains(itemForParticularProductionRule)) {
-                        addedNew = true;
-                        toAdd.add(itemForParticularProductionRule);
-                    }
+            String leftSideOfProductionRule = productionRule.getLeftHandSide();
+            for(List<String> rightHandSideOfProductionRule: productionRule.getRightHandSide()) {
+                Item itemForParticularProductionRule = new Item(leftSideOfProductionRule, rightHandSideOfProductionRule, ItemType.NEW_ITEM);
+                if (closureItem.add(itemForParticularProductionRule)) {
+                    worklist.add(itemForParticularProductionRule);
                 }
             }
+        }
 
-            if (!toAdd.isEmpty()) {
-                closureItem.addAll(toAdd);
-            }
+        return closureItem;
+    }
+
+    private Set<Item> pooledClosure() {
+        CompiledGrammar compiledGrammar = this.pool.getCompiledGrammar();
+        Set<Item> closureItem = new LinkedHashSet<>();
+        closureItem.add(this);
+
+        int nextSymbol = compiledGrammar.getNextSymbol(this.packedItem);
+        if(nextSymbol < 0 || !compiledGrammar.isNonTerminal(nextSymbol)) {
+            return closureItem;
         }
 
+        //the closure of the non-terminal next to the dot is precomputed by the compiled grammar
+        long[] nonTerminals = compiledGrammar.getClosureNonTerminals(nextSymbol);
+        for(int i=0; i<nonTerminals.length; i++) {
+            for(long word = nonTerminals[i]; word != 0; word &= word - 1) {
+                int nonTerminal = (i << 6) + Long.numberOfTrailingZeros(word) + compiledGrammar.getTerminalCount();
+                for(int p=compiledGrammar.getProductionsStart(nonTerminal); p<compiledGrammar.getProductionsEnd(nonTerminal); p++) {
+                    closureItem.add(this.pool.get(compiledGrammar.getInitialItem(p)));
+                }
+            }
+        }
         return closureItem;
     }
 
@@ -124,12 +185,14 @@ public class Item {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Item item = (Item) o;
+        if (this.pool != null && this.pool == item.pool) return false;
+        if (this.hashCode != item.hashCode) return false;
         return Objects.equals(leftSide, item.leftSide) && Objects.equals(rightSide, item.rightSide);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(leftSide, rightSide);
+        return this.hashCode;
     }
 
     //testing
@@ -0,0 +1,56 @@
+package model;
+
+import grammar.CompiledGrammar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static constants.StringConstants.DOTMARKER;
+
+/**
+ * Canonical Item instances of one compiled grammar, one per packed item (production and dot position).
+ * Items are created on first use and kept in an array indexed by the packed item, so equal items
+ * of the grammar are the same instance and compare by identity.
+ */
+public class ItemPool {
+    private final CompiledGrammar compiledGrammar;
+    private final Item[] items;
+
+    public ItemPool(CompiledGrammar compiledGrammar) {
+        this.compiledGrammar = compiledGrammar;
+        this.items = new Item[compiledGrammar.getItemCount()];
+    }
+
+    public CompiledGrammar getCompiledGrammar() {
+        return this.compiledGrammar;
+    }
+
+    /**
+     * @return the canonical Item of the packed item
+     */
+    public Item get(int item) {
+        Item result = this.items[item];
+        if(result == null) {
+            //items have only final fields, so an item read without the lock is always complete
+            synchronized (this) {
+                result = this.items[item];
+                if(result == null) {
+                    result = this.create(item);
+                    this.items[item] = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private Item create(int item) {
+        int production = this.compiledGrammar.getItemProduction(item);
+        int length = this.compiledGrammar.getProductionLength(production);
+        List<String> right = new ArrayList<>(length + 1);
+        for(int position=0; position<length; position++) {
+            right.add(this.compiledGrammar.getSymbolName(this.compiledGrammar.getRightSideSymbol(production, position)));
+        }
+        right.add(this.compiledGrammar.getItemDot(item), DOTMARKER);
+        return new Item(this, item, this.compiledGrammar.getSymbolName(this.compiledGrammar.getProductionLeftSide(production)), right);
+    }
+}
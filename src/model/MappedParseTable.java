@@ -0,0 +1,217 @@
+package model;
+
+import grammar.TableMode;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ACTION/GOTO table read directly from a buffer in the binary parse table format, usually a memory mapped file.
+ * Nothing is copied out of the buffer when it is opened, every lookup reads the ints at their offset,
+ * so opening a table costs the same for every grammar size.
+ * Lookups only use absolute reads, so one table can be shared by the parsers of several threads.
+ * <p>
+ * Layout, all ints big endian:
+ * <pre>
+ * header:    MAGIC, VERSION, table mode ordinal, terminal count, symbol count, state count, production count,
+ *            action slots, goto slots, symbol name bytes
+ * int[state count]              default action
+ * int[production count]         left side, then length of every production
+ * int[state count], int[action slots], int[action slots]    action base, check, next
+ * int[state count], int[goto slots], int[goto slots]        goto base, check, next
+ * int[symbol count + 1]         start of every symbol name in the name bytes
+ * byte[symbol name bytes]       UTF-8 symbol names
+ * </pre>
+ * Cells are encoded as in {@link CompactParseTable}.
+ */
+public class MappedParseTable implements ActionGotoTable {
+    public static final int MAGIC = 0x4C525442;
+    public static final int VERSION = 1;
+    public static final int HEADER_INTS = 10;
+
+    private final ByteBuffer buffer;
+    private final TableMode tableMode;
+    private final int terminalCount;
+    private final int symbolCount;
+    private final int stateCount;
+    private final int productionCount;
+    private final int actionSlots;
+    private final int gotoSlots;
+
+    //byte offsets of the sections
+    private final int defaultActionOffset;
+    private final int productionLeftSideOffset;
+    private final int productionLengthOffset;
+    private final int actionBaseOffset;
+    private final int actionCheckOffset;
+    private final int actionNextOffset;
+    private final int gotoBaseOffset;
+    private final int gotoCheckOffset;
+    private final int gotoNextOffset;
+    private final int nameStartOffset;
+    private final int namesOffset;
+
+    //built on the first call of getSymbolId, volatile so that other threads only see the finished map
+    private volatile Map<String, Integer> symbolIds;
+
+    /**
+     * @throws IllegalArgumentException if the buffer does not hold a table of this format version
+     */
+    public MappedParseTable(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if(buffer.capacity() < 4 * HEADER_INTS || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a binary parse table");
+        }
+        if(buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary parse table version " + buffer.getInt(4) + ", expected " + VERSION);
+        }
+
+        int tableModeOrdinal = buffer.getInt(8);
+        if(tableModeOrdinal < 0 || tableModeOrdinal >= TableMode.values().length) {
+            throw new IllegalArgumentException("Unknown table mode " + tableModeOrdinal + " in binary parse table");
+        }
+        this.tableMode = TableMode.values()[tableModeOrdinal];
+        this.terminalCount = buffer.getInt(12);
+        this.symbolCount = buffer.getInt(16);
+        this.stateCount = buffer.getInt(20);
+        this.productionCount = buffer.getInt(24);
+        this.actionSlots = buffer.getInt(28);
+        this.gotoSlots = buffer.getInt(32);
+        int nameBytes = buffer.getInt(36);
+
+        this.defaultActionOffset = 4 * HEADER_INTS;
+        this.productionLeftSideOffset = this.defaultActionOffset + 4 * this.stateCount;
+        this.productionLengthOffset = this.productionLeftSideOffset + 4 * this.productionCount;
+        this.actionBaseOffset = this.productionLengthOffset + 4 * this.productionCount;
+        this.actionCheckOffset = this.actionBaseOffset + 4 * this.stateCount;
+        this.actionNextOffset = this.actionCheckOffset + 4 * this.actionSlots;
+        this.gotoBaseOffset = this.actionNextOffset + 4 * this.actionSlots;
+        this.gotoCheckOffset = this.gotoBaseOffset + 4 * this.stateCount;
+        this.gotoNextOffset = this.gotoCheckOffset + 4 * this.gotoSlots;
+        this.nameStartOffset = this.gotoNextOffset + 4 * this.gotoSlots;
+        this.namesOffset = this.nameStartOffset + 4 * (this.symbolCount + 1);
+
+        if(buffer.capacity() != this.namesOffset + nameBytes) {
+            throw new IllegalArgumentException("Binary parse table is truncated or has trailing bytes");
+        }
+    }
+
+    /**
+     * Number of bytes needed to store a table with the given sizes
+     */
+    public static int sizeInBytes(int symbolCount, int stateCount, int productionCount, int actionSlots, int gotoSlots, int nameBytes) {
+        return 4 * (HEADER_INTS + 3 * stateCount + 2 * productionCount + 2 * actionSlots + 2 * gotoSlots + symbolCount + 1) + nameBytes;
+    }
+
+    private int getInt(int offset, int index) {
+        return this.buffer.getInt(offset + 4 * index);
+    }
+
+    private int[] getInts(int offset, int count) {
+        int[] values = new int[count];
+        //a duplicate has its own position, so other threads reading the table are not disturbed
+        this.buffer.duplicate().position(offset).asIntBuffer().get(values);
+        return values;
+    }
+
+    public TableMode getTableMode() {
+        return this.tableMode;
+    }
+
+    public int getStateCount() {
+        return this.stateCount;
+    }
+
+    public int getTerminalCount() {
+        return this.terminalCount;
+    }
+
+    public int getSymbolCount() {
+        return this.symbolCount;
+    }
+
+    public int getProductionCount() {
+        return this.productionCount;
+    }
+
+    @Override
+    public int getAction(int state, int terminal) {
+        int index = this.getInt(this.actionBaseOffset, state) + terminal;
+        if(index < this.actionSlots && this.getInt(this.actionCheckOffset, index) == state) {
+            int action = this.getInt(this.actionNextOffset, index);
+            if(action != CompactParseTable.ERROR) {
+                return action;
+            }
+        }
+        return this.getInt(this.defaultActionOffset, state);
+    }
+
+    @Override
+    public int getGoto(int state, int nonTerminal) {
+        int index = this.getInt(this.gotoBaseOffset, state) + nonTerminal - this.terminalCount;
+        if(index < this.gotoSlots && this.getInt(this.gotoCheckOffset, index) == state) {
+            return this.getInt(this.gotoNextOffset, index);
+        }
+        return 0;
+    }
+
+    public int getDefaultAction(int state) {
+        return this.getInt(this.defaultActionOffset, state);
+    }
+
+    @Override
+    public int getProductionLeftSide(int production) {
+        return this.getInt(this.productionLeftSideOffset, production);
+    }
+
+    @Override
+    public int getProductionLength(int production) {
+        return this.getInt(this.productionLengthOffset, production);
+    }
+
+    public String getSymbolName(int symbol) {
+        int start = this.getInt(this.nameStartOffset, symbol);
+        int end = this.getInt(this.nameStartOffset, symbol + 1);
+        byte[] bytes = new byte[end - start];
+        for(int i=0; i<bytes.length; i++) {
+            bytes[i] = this.buffer.get(this.namesOffset + start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return id of the symbol, -1 if the grammar has no such symbol
+     */
+    public int getSymbolId(String name) {
+        Map<String, Integer> symbolIds = this.symbolIds;
+        if(symbolIds == null) {
+            //threads racing here each build the same map, any of them may be kept
+            symbolIds = new HashMap<>();
+            for(int symbol=0; symbol<this.symbolCount; symbol++) {
+                symbolIds.put(this.getSymbolName(symbol), symbol);
+            }
+            this.symbolIds = symbolIds;
+        }
+        return symbolIds.getOrDefault(name, -1);
+    }
+
+    /**
+     * Copies the cells out of the buffer, for code which needs the packed arrays like the parser generators
+     */
+    public CompactParseTable toCompactParseTable() {
+        return new CompactParseTable(this.terminalCount, this.getInts(this.defaultActionOffset, this.stateCount),
+                new RowDisplacementTable(this.getInts(this.actionBaseOffset, this.stateCount),
+                        this.getInts(this.actionCheckOffset, this.actionSlots), this.getInts(this.actionNextOffset, this.actionSlots)),
+                new RowDisplacementTable(this.getInts(this.gotoBaseOffset, this.stateCount),
+                        this.getInts(this.gotoCheckOffset, this.gotoSlots), this.getInts(this.gotoNextOffset, this.gotoSlots)),
+                this.getInts(this.productionLeftSideOffset, this.productionCount), this.getInts(this.productionLengthOffset, this.productionCount));
+    }
+
+    @Override
+    public String toString() {
+        return "MappedParseTable: " + this.tableMode + ", " + this.stateCount + " states, "
+                + this.symbolCount + " symbols, " + this.buffer.capacity() + " bytes";
+    }
+}
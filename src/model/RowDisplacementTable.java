@@ -0,0 +1,117 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Sparse two dimensional int table compressed with row displacement (comb vector).
+ * The non empty cells of every row are laid into one shared array at an offset base[row],
+ * check[] remembers which row owns a slot, so a lookup is base[row] + column plus one comparison.
+ * Cells which were not set read as 0.
+ */
+public class RowDisplacementTable {
+    private final int[] base;
+    private final int[] check;
+    private final int[] next;
+
+    /**
+     * @param columns columns[row] are the sorted columns of the non empty cells of the row
+     * @param values values[row][i] is the value of cell (row, columns[row][i]), must not be 0
+     */
+    public RowDisplacementTable(int[][] columns, int[][] values) {
+        int rowCount = columns.length;
+        this.base = new int[rowCount];
+
+        //place the densest rows first, they are the hardest to fit
+        Integer[] order = new Integer[rowCount];
+        for(int row=0; row<rowCount; row++) {
+            order[row] = row;
+        }
+        Arrays.sort(order, (first, second) -> Integer.compare(columns[second].length, columns[first].length));
+
+        int[] check = new int[64];
+        int[] next = new int[64];
+        Arrays.fill(check, -1);
+        int used = 0;
+        int firstFree = 0;
+
+        for(int row: order) {
+            int[] rowColumns = columns[row];
+            if(rowColumns.length == 0) {
+                continue;
+            }
+
+            int rowBase = Math.max(0, firstFree - rowColumns[0]);
+            while(true) {
+                int needed = rowBase + rowColumns[rowColumns.length - 1] + 1;
+                if(needed > check.length) {
+                    int newLength = Math.max(needed, 2 * check.length);
+                    int oldLength = check.length;
+                    check = Arrays.copyOf(check, newLength);
+                    next = Arrays.copyOf(next, newLength);
+                    Arrays.fill(check, oldLength, newLength, -1);
+                }
+
+                boolean fits = true;
+                for(int column: rowColumns) {
+                    if(check[rowBase + column] != -1) {
+                        fits = false;
+                        break;
+                    }
+                }
+                if(fits) {
+                    break;
+                }
+                rowBase++;
+            }
+
+            this.base[row] = rowBase;
+            for(int i=0; i<rowColumns.length; i++) {
+                check[rowBase + rowColumns[i]] = row;
+                next[rowBase + rowColumns[i]] = values[row][i];
+            }
+            used = Math.max(used, rowBase + rowColumns[rowColumns.length - 1] + 1);
+            while(firstFree < check.length && check[firstFree] != -1) {
+                firstFree++;
+            }
+        }
+
+        this.check = Arrays.copyOf(check, used);
+        this.next = Arrays.copyOf(next, used);
+    }
+
+    /**
+     * Wraps arrays which were already packed, e.g. read back from a file
+     */
+    public RowDisplacementTable(int[] base, int[] check, int[] next) {
+        this.base = base;
+        this.check = check;
+        this.next = next;
+    }
+
+    public int get(int row, int column) {
+        int index = this.base[row] + column;
+        if(index < this.check.length && this.check[index] == row) {
+            return this.next[index];
+        }
+        return 0;
+    }
+
+    public int[] getBase() {
+        return this.base;
+    }
+
+    public int[] getCheck() {
+        return this.check;
+    }
+
+    public int[] getNext() {
+        return this.next;
+    }
+
+    /**
+     * @return number of slots in the packed arrays
+     */
+    public int getPackedLength() {
+        return this.next.length;
+    }
+}
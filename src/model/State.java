@@ -1,11 +1,19 @@
 package model;
 
+import grammar.CompiledGrammar;
 import grammar.Grammar;
 
 import java.util.*;
 
 public class State {
-    private final Set<Item> items;
+    private Set<Item> items;
+
+    //packed form, null when the state was built from Item objects
+    private final CompiledGrammar compiledGrammar;
+    private final int[] kernel;
+    private final int[] packedItems;
+
+    private final int hashCode;
 
     public State(Set<Item> nonClosureItems, List<ProductionRule> productionRules) {
         this.items = new HashSet<>(nonClosureItems);
@@ -16,13 +24,110 @@ public class State {
             closureItems.addAll(currClosureItems);
         });
         this.items.addAll(closureItems);
+
+        this.compiledGrammar = null;
+        this.kernel = null;
+        this.packedItems = null;
+        this.hashCode = Objects.hash(this.items);
+    }
+
+    /**
+     * Creates the state from its kernel, the state is identified by the kernel alone
+     * @param kernel sorted packed items of the state before taking the closure
+     * @param kernelHash hash of the kernel, as computed by KernelTable.hash
+     */
+    public State(int[] kernel, int kernelHash, CompiledGrammar compiledGrammar) {
+        this.compiledGrammar = compiledGrammar;
+        this.kernel = kernel;
+        this.packedItems = closure(kernel, compiledGrammar);
+        this.hashCode = kernelHash;
+    }
+
+    private static int[] closure(int[] kernel, CompiledGrammar compiledGrammar) {
+        //union of the precomputed closure sets of every non-terminal next to the dot
+        long[] nonTerminals = new long[(compiledGrammar.getNonTerminalCount() + 63) >>> 6];
+        for(int item: kernel) {
+            int nextSymbol = compiledGrammar.getNextSymbol(item);
+            if(nextSymbol >= 0 && compiledGrammar.isNonTerminal(nextSymbol)) {
+                long[] closureNonTerminals = compiledGrammar.getClosureNonTerminals(nextSymbol);
+                for(int i=0; i<nonTerminals.length; i++) {
+                    nonTerminals[i] |= closureNonTerminals[i];
+                }
+            }
+        }
+
+        int size = 0;
+        for(int i=0; i<nonTerminals.length; i++) {
+            for(long word = nonTerminals[i]; word != 0; word &= word - 1) {
+                int nonTerminal = (i << 6) + Long.numberOfTrailingZeros(word) + compiledGrammar.getTerminalCount();
+                size += compiledGrammar.getProductionsEnd(nonTerminal) - compiledGrammar.getProductionsStart(nonTerminal);
+            }
+        }
+
+        //initial items come out in ascending order, merge them with the sorted kernel
+        int[] initialItems = new int[size];
+        size = 0;
+        for(int i=0; i<nonTerminals.length; i++) {
+            for(long word = nonTerminals[i]; word != 0; word &= word - 1) {
+                int nonTerminal = (i << 6) + Long.numberOfTrailingZeros(word) + compiledGrammar.getTerminalCount();
+                for(int p=compiledGrammar.getProductionsStart(nonTerminal); p<compiledGrammar.getProductionsEnd(nonTerminal); p++) {
+                    initialItems[size++] = compiledGrammar.getInitialItem(p);
+                }
+            }
+        }
+
+        int[] result = new int[kernel.length + initialItems.length];
+        int i = 0, j = 0, k = 0;
+        while(i < kernel.length || j < initialItems.length) {
+            if(j == initialItems.length || (i < kernel.length && kernel[i] < initialItems[j])) {
+                result[k++] = kernel[i++];
+            } else if(i == kernel.length || initialItems[j] < kernel[i]) {
+                result[k++] = initialItems[j++];
+            } else {
+                //only the start state has an initial item in its kernel
+                result[k++] = kernel[i++];
+                j++;
+            }
+        }
+        return k == result.length ? result : Arrays.copyOf(result, k);
     }
 
     public Set<Item> getItems() {
-        return Collections.unmodifiableSet(items);
+        if(this.items == null) {
+            Set<Item> view = new LinkedHashSet<>();
+            for(int item: this.packedItems) {
+                view.add(this.compiledGrammar.getItemView(item));
+            }
+            this.items = view;
+        }
+        return Collections.unmodifiableSet(this.items);
+    }
+
+    public int[] getKernel() {
+        return this.kernel;
+    }
+
+    /**
+     * @return all packed items of the state in ascending order, the kernel and its closure
+     */
+    public int[] getPackedItems() {
+        return this.packedItems;
     }
 
     public boolean isAcceptingState() {
+        if(this.packedItems != null) {
+            int reductionItem = -1;
+            for(int item: this.packedItems) {
+                if(this.compiledGrammar.isReductionItem(item)) {
+                    if(reductionItem >= 0) {
+                        return false;
+                    }
+                    reductionItem = item;
+                }
+            }
+            return reductionItem >= 0 && this.compiledGrammar.isAcceptingItem(reductionItem);
+        }
+
         if(isReducingState()) {
             Set<Item> itemsWhichAreReducing = this.getItemsWhichAreReducingItems();
             if(itemsWhichAreReducing.size() > 1) {
@@ -37,13 +142,22 @@ public class State {
     }
 
     public boolean isReducingState() {
+        if(this.packedItems != null) {
+            for(int item: this.packedItems) {
+                if(this.compiledGrammar.isReductionItem(item)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         Set<Item> reductionItems = this.getItemsWhichAreReducingItems();
         return !reductionItems.isEmpty();
     }
 
     public Set<Item> getItemsWhichAreReducingItems() {
         Set<Item> result = new HashSet<>();
-        items.forEach((item) -> {
+        this.getItems().forEach((item) -> {
             if(item.isReductionItem()) {
                 result.add(item);
             }
@@ -57,18 +171,22 @@ public class State {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         State state = (State) o;
-        return Objects.equals(items, state.items);
+        if(this.hashCode != state.hashCode) return false;
+        if(this.kernel != null && state.kernel != null) {
+            return Arrays.equals(this.kernel, state.kernel);
+        }
+        return Objects.equals(this.getItems(), state.getItems());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(items);
+        return this.hashCode;
     }
 
     @Override
     public String toString() {
         StringBuilder stringBuilder = new StringBuilder("State:\n");
-        this.items.forEach((item -> {
+        this.getItems().forEach((item -> {
             stringBuilder.append(item).append("\n");
         }));
 
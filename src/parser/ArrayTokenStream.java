@@ -0,0 +1,34 @@
+package parser;
+
+import grammar.CompiledGrammar;
+
+/**
+ * Token stream over an int array of terminal ids, which can be reset to parse a new input without allocating.
+ */
+public class ArrayTokenStream implements TokenStream {
+    private int[] tokens;
+    private int length;
+    private int position;
+
+    public ArrayTokenStream(int[] tokens) {
+        this.reset(tokens, tokens.length);
+    }
+
+    public void reset(int[] tokens, int length) {
+        this.tokens = tokens;
+        this.length = length;
+        this.position = 0;
+    }
+
+    public int getPosition() {
+        return this.position;
+    }
+
+    @Override
+    public int nextToken() {
+        if(this.position < this.length) {
+            return this.tokens[this.position++];
+        }
+        return CompiledGrammar.END_OF_LINE;
+    }
+}
@@ -0,0 +1,8 @@
+package parser;
+
+/**
+ * Called by the parser every time a production is reduced, with the production number of the compiled grammar.
+ */
+public interface ReductionListener {
+    void onReduce(int production);
+}
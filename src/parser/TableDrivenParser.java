@@ -0,0 +1,126 @@
+package parser;
+
+import grammar.CompiledGrammar;
+import grammar.LR0Grammar;
+import model.ActionGotoTable;
+import model.CompactParseTable;
+
+import java.util.Arrays;
+
+/**
+ * Shift/reduce parser running on an int encoded ACTION/GOTO table.
+ * The state stack is a growable int array kept between calls, so once it has grown to the depth of the input
+ * parsing does not allocate anything per token.
+ * A parser instance is not thread safe, use one per thread.
+ */
+public class TableDrivenParser {
+    private final ActionGotoTable table;
+    private int[] stateStack;
+    private int top;
+
+    //where the last parse failed
+    private int errorState;
+    private int errorToken;
+    private long tokensShifted;
+
+    public TableDrivenParser(ActionGotoTable table) {
+        this(table, 64);
+    }
+
+    public TableDrivenParser(ActionGotoTable table, int initialStackSize) {
+        this.table = table;
+        this.stateStack = new int[Math.max(initialStackSize, 4)];
+    }
+
+    private void push(int state) {
+        if(++this.top == this.stateStack.length) {
+            this.stateStack = Arrays.copyOf(this.stateStack, 2 * this.stateStack.length);
+        }
+        this.stateStack[this.top] = state;
+    }
+
+    /**
+     * Parses the tokens until accept or the first syntax error
+     * @return true if the input was accepted, false on a syntax error (see getErrorState and getErrorToken)
+     */
+    public boolean parse(TokenStream tokens, ReductionListener listener) {
+        this.top = 0;
+        this.stateStack[0] = 0;
+        this.errorState = -1;
+        this.errorToken = -1;
+        this.tokensShifted = 0;
+
+        int lookahead = tokens.nextToken();
+        while(true) {
+            int state = this.stateStack[this.top];
+            int action = this.table.getAction(state, lookahead);
+
+            if(CompactParseTable.isShift(action)) {
+                this.push(CompactParseTable.getShiftState(action));
+                this.tokensShifted++;
+                //$ ends the input, there is nothing to read after it
+                if(lookahead != CompiledGrammar.END_OF_LINE) {
+                    lookahead = tokens.nextToken();
+                }
+            } else if(CompactParseTable.isReduce(action)) {
+                int production = CompactParseTable.getReduceProduction(action);
+                this.top -= this.table.getProductionLength(production);
+                int gotoState = this.table.getGoto(this.stateStack[this.top], this.table.getProductionLeftSide(production));
+                listener.onReduce(production);
+                this.push(gotoState);
+            } else if(action == CompactParseTable.ACCEPT) {
+                return true;
+            } else {
+                this.errorState = state;
+                this.errorToken = lookahead;
+                return false;
+            }
+        }
+    }
+
+    public int getErrorState() {
+        return this.errorState;
+    }
+
+    public int getErrorToken() {
+        return this.errorToken;
+    }
+
+    public long getTokensShifted() {
+        return this.tokensShifted;
+    }
+
+    //for testing
+    public static void main(String[] args) {
+        LR0Grammar grammar = new LR0Grammar();
+        grammar.setFirstSymbol("E");
+        grammar.addTerminalSymbol("+");
+        grammar.addTerminalSymbol("-");
+        grammar.addTerminalSymbol("(");
+        grammar.addTerminalSymbol(")");
+        grammar.addTerminalSymbol("id");
+
+        grammar.addNonTerminalSymbol("E");
+        grammar.addNonTerminalSymbol("T");
+
+        grammar.addRule("E -> E + T | E - T | T");
+        grammar.addRule("T -> ( E ) | id");
+
+        grammar.computeTransitions();
+        CompactParseTable table = grammar.computeCompactParsingTable();
+        CompiledGrammar compiledGrammar = grammar.compile();
+
+        String[] input = {"id", "+", "(", "id", "-", "id", ")", "$"};
+        int[] tokens = Arrays.stream(input).mapToInt(compiledGrammar::getSymbolId).toArray();
+
+        TableDrivenParser parser = new TableDrivenParser(table);
+        boolean accepted = parser.parse(new ArrayTokenStream(tokens),
+                production -> System.out.println("Reduce: " + compiledGrammar.productionToString(production)));
+        System.out.println("Accepted: " + accepted);
+
+        int[] wrongTokens = {compiledGrammar.getSymbolId("id"), compiledGrammar.getSymbolId("id")};
+        accepted = parser.parse(new ArrayTokenStream(wrongTokens), production -> { });
+        System.out.println("Accepted: " + accepted + ", error in state " + parser.getErrorState()
+                + " on " + compiledGrammar.getSymbolName(parser.getErrorToken()));
+    }
+}
@@ -0,0 +1,8 @@
+package parser;
+
+/**
+ * Source of terminal ids for the parser. After the last token it keeps returning the id of $ (0).
+ */
+public interface TokenStream {
+    int nextToken();
+}
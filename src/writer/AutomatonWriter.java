@@ -0,0 +1,123 @@
+package writer;
+
+import grammar.CompiledGrammar;
+import grammar.LR0Grammar;
+import model.CompactParseTable;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the states, transitions and parsing table of a grammar in one of the OutputFormats. Rows are streamed
+ * to a buffered UTF-8 writer over a file channel as they are produced, so the memory used does not grow with
+ * the size of the automaton. A writer writes one file, call one of the write functions and close it.
+ */
+public abstract class AutomatonWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    protected final Writer out;
+
+    protected AutomatonWriter(Writer out) {
+        this.out = out;
+    }
+
+    public static AutomatonWriter create(OutputFormat format, Writer out) {
+        switch (format) {
+            case CSV:
+                return new CsvAutomatonWriter(out);
+            case JSON_LINES:
+                return new JsonLinesAutomatonWriter(out);
+            case SPARSE:
+                return new SparseAutomatonWriter(out);
+            default:
+                return new TextAutomatonWriter(out);
+        }
+    }
+
+    /**
+     * Creates or truncates the file and opens a writer of the format on it
+     */
+    public static AutomatonWriter open(OutputFormat format, Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE), BUFFER_SIZE);
+        return create(format, writer);
+    }
+
+    public abstract void writeStates(LR0Grammar grammar) throws IOException;
+
+    public abstract void writeTransitions(LR0Grammar grammar) throws IOException;
+
+    public abstract void writeParsingTable(LR0Grammar grammar) throws IOException;
+
+    /**
+     * @return column symbols of the parsing table, terminals first, in the order of the print functions
+     */
+    protected static List<String> tableSymbols(LR0Grammar grammar) {
+        List<String> symbols = new ArrayList<>(grammar.getTerminalSymbols());
+        symbols.addAll(grammar.getNonTerminalSymbols());
+        return symbols;
+    }
+
+    /**
+     * One row of the parsing table at a time, computed by LR0Grammar.computeParsingTableRow into reused arrays,
+     * so writing the table needs memory for one row only. Cells read as the elements of computeParsingTable.
+     */
+    protected static class TableRow {
+        private final LR0Grammar grammar;
+        private final CompiledGrammar compiledGrammar;
+        private final int[] actionRow;
+        private final int[] gotoRow;
+
+        protected TableRow(LR0Grammar grammar) {
+            this.grammar = grammar;
+            this.compiledGrammar = grammar.compile();
+            this.actionRow = new int[this.compiledGrammar.getTerminalCount()];
+            this.gotoRow = new int[this.compiledGrammar.getNonTerminalCount()];
+        }
+
+        protected void load(int state) {
+            this.grammar.computeParsingTableRow(state, this.actionRow, this.gotoRow);
+        }
+
+        /**
+         * @return text of the cell of the symbol in the loaded row, null if it is empty
+         */
+        protected String cell(String symbol) {
+            int id = this.compiledGrammar.getSymbolId(symbol);
+            if(id < 0) {
+                return null;
+            }
+            if(this.compiledGrammar.isNonTerminal(id)) {
+                int target = this.gotoRow[id - this.compiledGrammar.getTerminalCount()];
+                return target == 0 ? null : "GOTO: " + target;
+            }
+            int action = this.actionRow[id];
+            if(action == CompactParseTable.ERROR) {
+                return null;
+            } else if(action == CompactParseTable.ACCEPT) {
+                return "Accept";
+            } else if(CompactParseTable.isShift(action)) {
+                return "Shift: " + CompactParseTable.getShiftState(action);
+            }
+            return "Reduce: " + this.compiledGrammar.getProductionRule(CompactParseTable.getReduceProduction(action));
+        }
+    }
+
+    protected static String itemToString(CompiledGrammar compiledGrammar, int item) {
+        return compiledGrammar.getItemView(item).toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.out.close();
+    }
+}
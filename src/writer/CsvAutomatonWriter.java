@@ -0,0 +1,89 @@
+package writer;
+
+import grammar.CompiledGrammar;
+import grammar.LR0Grammar;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Comma separated values as in RFC 4180: states as one row per item, transitions as one row per transition
+ * and the parsing table as one row per state with a column per symbol, empty cells left empty
+ */
+public class CsvAutomatonWriter extends AutomatonWriter {
+    public CsvAutomatonWriter(Writer out) {
+        super(out);
+    }
+
+    @Override
+    public void writeStates(LR0Grammar grammar) throws IOException {
+        CompiledGrammar compiledGrammar = grammar.compile();
+        this.out.write("state,item\n");
+        for(int state=0; state<grammar.getStateCount(); state++) {
+            for(int item: grammar.getState(state).getPackedItems()) {
+                this.out.write(Integer.toString(state));
+                this.out.write(',');
+                this.writeField(itemToString(compiledGrammar, item));
+                this.out.write('\n');
+            }
+        }
+    }
+
+    @Override
+    public void writeTransitions(LR0Grammar grammar) throws IOException {
+        CompiledGrammar compiledGrammar = grammar.compile();
+        this.out.write("from,symbol,to\n");
+        for(int state=0; state<grammar.getStateCount(); state++) {
+            for(int transition=grammar.getTransitionsStart(state); transition<grammar.getTransitionsEnd(state); transition++) {
+                this.out.write(Integer.toString(state));
+                this.out.write(',');
+                this.writeField(compiledGrammar.getSymbolName(grammar.getTransitionSymbol(transition)));
+                this.out.write(',');
+                this.out.write(Integer.toString(grammar.getTransitionTarget(transition)));
+                this.out.write('\n');
+            }
+        }
+    }
+
+    @Override
+    public void writeParsingTable(LR0Grammar grammar) throws IOException {
+        List<String> symbols = tableSymbols(grammar);
+        this.out.write("state");
+        for(String symbol: symbols) {
+            this.out.write(',');
+            this.writeField(symbol);
+        }
+        this.out.write('\n');
+
+        TableRow row = new TableRow(grammar);
+        for(int state=0; state<grammar.getStateCount(); state++) {
+            row.load(state);
+            this.out.write(Integer.toString(state));
+            for(String symbol: symbols) {
+                this.out.write(',');
+                String cell = row.cell(symbol);
+                if(cell != null) {
+                    this.writeField(cell);
+                }
+            }
+            this.out.write('\n');
+        }
+    }
+
+    //quoted if it contains a separator, a quote or a line break, quotes doubled
+    private void writeField(String field) throws IOException {
+        boolean quote = false;
+        for(int i=0; i<field.length() && !quote; i++) {
+            char c = field.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if(!quote) {
+            this.out.write(field);
+            return;
+        }
+        this.out.write('"');
+        this.out.write(field.replace("\"", "\"\""));
+        this.out.write('"');
+    }
+}
@@ -0,0 +1,87 @@
+package writer;
+
+import grammar.CompiledGrammar;
+import grammar.LR0Grammar;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * One JSON object per line: {"state":0,"items":[...]} per state, {"from":0,"symbol":"a","to":1} per transition
+ * and {"state":0,"cells":{"a":"Shift: 1",...}} per row of the parsing table, without the empty cells
+ */
+public class JsonLinesAutomatonWriter extends AutomatonWriter {
+    public JsonLinesAutomatonWriter(Writer out) {
+        super(out);
+    }
+
+    @Override
+    public void writeStates(LR0Grammar grammar) throws IOException {
+        CompiledGrammar compiledGrammar = grammar.compile();
+        for(int state=0; state<grammar.getStateCount(); state++) {
+            this.out.write("{\"state\":" + state + ",\"items\":[");
+            int[] items = grammar.getState(state).getPackedItems();
+            for(int i=0; i<items.length; i++) {
+                if(i > 0) {
+                    this.out.write(',');
+                }
+                this.writeString(itemToString(compiledGrammar, items[i]));
+            }
+            this.out.write("]}\n");
+        }
+    }
+
+    @Override
+    public void writeTransitions(LR0Grammar grammar) throws IOException {
+        CompiledGrammar compiledGrammar = grammar.compile();
+        for(int state=0; state<grammar.getStateCount(); state++) {
+            for(int transition=grammar.getTransitionsStart(state); transition<grammar.getTransitionsEnd(state); transition++) {
+                this.out.write("{\"from\":" + state + ",\"symbol\":");
+                this.writeString(compiledGrammar.getSymbolName(grammar.getTransitionSymbol(transition)));
+                this.out.write(",\"to\":" + grammar.getTransitionTarget(transition) + "}\n");
+            }
+        }
+    }
+
+    @Override
+    public void writeParsingTable(LR0Grammar grammar) throws IOException {
+        List<String> symbols = tableSymbols(grammar);
+        TableRow row = new TableRow(grammar);
+        for(int state=0; state<grammar.getStateCount(); state++) {
+            row.load(state);
+            this.out.write("{\"state\":" + state + ",\"cells\":{");
+            boolean first = true;
+            for(String symbol: symbols) {
+                String cell = row.cell(symbol);
+                if(cell == null) {
+                    continue;
+                }
+                if(!first) {
+                    this.out.write(',');
+                }
+                first = false;
+                this.writeString(symbol);
+                this.out.write(':');
+                this.writeString(cell);
+            }
+            this.out.write("}}\n");
+        }
+    }
+
+    private void writeString(String text) throws IOException {
+        this.out.write('"');
+        for(int i=0; i<text.length(); i++) {
+            char c = text.charAt(i);
+            if(c == '"' || c == '\\') {
+                this.out.write('\\');
+                this.out.write(c);
+            } else if(c < 0x20) {
+                this.out.write(String.format("\\u%04x", (int) c));
+            } else {
+                this.out.write(c);
+            }
+        }
+        this.out.write('"');
+    }
+}
@@ -0,0 +1,25 @@
+package writer;
+
+/**
+ * File formats of the automaton and parsing table output, see AutomatonWriter
+ */
+public enum OutputFormat {
+    //the layout of the print functions
+    TEXT("txt"),
+    //one row per state, item or transition with a header line
+    CSV("csv"),
+    //one JSON object per line
+    JSON_LINES("jsonl"),
+    //tab separated triples, only the cells of the parsing table which are not empty
+    SPARSE("tsv");
+
+    private final String extension;
+
+    OutputFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return this.extension;
+    }
+}
@@ -0,0 +1,71 @@
+package writer;
+
+import grammar.CompiledGrammar;
+import grammar.LR0Grammar;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Tab separated triples without a header: "state item" per item, "from symbol to" per transition and
+ * "state symbol cell" for the parsing table cells which are not empty. Tabs and line breaks in names
+ * are written as \t and \n.
+ */
+public class SparseAutomatonWriter extends AutomatonWriter {
+    public SparseAutomatonWriter(Writer out) {
+        super(out);
+    }
+
+    @Override
+    public void writeStates(LR0Grammar grammar) throws IOException {
+        CompiledGrammar compiledGrammar = grammar.compile();
+        for(int state=0; state<grammar.getStateCount(); state++) {
+            for(int item: grammar.getState(state).getPackedItems()) {
+                this.writeRow(Integer.toString(state), itemToString(compiledGrammar, item), null);
+            }
+        }
+    }
+
+    @Override
+    public void writeTransitions(LR0Grammar grammar) throws IOException {
+        CompiledGrammar compiledGrammar = grammar.compile();
+        for(int state=0; state<grammar.getStateCount(); state++) {
+            for(int transition=grammar.getTransitionsStart(state); transition<grammar.getTransitionsEnd(state); transition++) {
+                this.writeRow(Integer.toString(state), compiledGrammar.getSymbolName(grammar.getTransitionSymbol(transition)),
+                        Integer.toString(grammar.getTransitionTarget(transition)));
+            }
+        }
+    }
+
+    @Override
+    public void writeParsingTable(LR0Grammar grammar) throws IOException {
+        List<String> symbols = tableSymbols(grammar);
+        TableRow row = new TableRow(grammar);
+        for(int state=0; state<grammar.getStateCount(); state++) {
+            row.load(state);
+            for(String symbol: symbols) {
+                String cell = row.cell(symbol);
+                if(cell != null) {
+                    this.writeRow(Integer.toString(state), symbol, cell);
+                }
+            }
+        }
+    }
+
+    //third is null for rows of two fields
+    private void writeRow(String first, String second, String third) throws IOException {
+        this.out.write(first);
+        this.out.write('\t');
+        this.out.write(escape(second));
+        if(third != null) {
+            this.out.write('\t');
+            this.out.write(escape(third));
+        }
+        this.out.write('\n');
+    }
+
+    private static String escape(String field) {
+        return field.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+}
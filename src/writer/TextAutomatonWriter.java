@@ -0,0 +1,88 @@
+package writer;
+
+import grammar.CompiledGrammar;
+import grammar.LR0Grammar;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * The layout of printIndexingOfStates, printTransitions and printParsingTable, with padded table columns
+ */
+public class TextAutomatonWriter extends AutomatonWriter {
+    public TextAutomatonWriter(Writer out) {
+        super(out);
+    }
+
+    @Override
+    public void writeStates(LR0Grammar grammar) throws IOException {
+        CompiledGrammar compiledGrammar = grammar.compile();
+        this.out.write("Total States: " + grammar.getStateCount() + "\n");
+        this.out.write("Indexing of maps:\n");
+        for(int state=0; state<grammar.getStateCount(); state++) {
+            this.out.write(state + " :-\nState:\n");
+            for(int item: grammar.getState(state).getPackedItems()) {
+                this.out.write(itemToString(compiledGrammar, item));
+                this.out.write('\n');
+            }
+            this.out.write('\n');
+        }
+    }
+
+    @Override
+    public void writeTransitions(LR0Grammar grammar) throws IOException {
+        CompiledGrammar compiledGrammar = grammar.compile();
+        this.out.write("Following are the transitions:\n");
+        for(int state=0; state<grammar.getStateCount(); state++) {
+            for(int transition=grammar.getTransitionsStart(state); transition<grammar.getTransitionsEnd(state); transition++) {
+                this.out.write("From State: " + state + "\n");
+                this.out.write("Transition String: " + compiledGrammar.getSymbolName(grammar.getTransitionSymbol(transition)) + "\n");
+                this.out.write("To State: " + grammar.getTransitionTarget(transition) + "\n");
+                this.out.write('\n');
+            }
+        }
+    }
+
+    @Override
+    public void writeParsingTable(LR0Grammar grammar) throws IOException {
+        List<String> symbols = tableSymbols(grammar);
+
+        //a first pass finds the column width, the rows are written in the second
+        TableRow row = new TableRow(grammar);
+        int width = 0;
+        for(int state=0; state<grammar.getStateCount(); state++) {
+            row.load(state);
+            for(String symbol: symbols) {
+                String cell = row.cell(symbol);
+                if(cell != null) {
+                    width = Math.max(width, cell.length());
+                }
+            }
+        }
+        width += 5;
+
+        this.out.write("This is the parsing table:\n");
+        for(String symbol: symbols) {
+            this.writePadded(symbol, width);
+        }
+        this.out.write('\n');
+
+        for(int state=0; state<grammar.getStateCount(); state++) {
+            row.load(state);
+            this.out.write(Integer.toString(state));
+            for(String symbol: symbols) {
+                this.writePadded(String.valueOf(row.cell(symbol)), width);
+            }
+            this.out.write('\n');
+        }
+    }
+
+    //right aligned like %<width>s
+    private void writePadded(String text, int width) throws IOException {
+        for(int i=text.length(); i<width; i++) {
+            this.out.write(' ');
+        }
+        this.out.write(text);
+    }
+}